@@ -0,0 +1,61 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorDelimiterFinder compares a whole vector of bytes (32 on AVX2, 64 on AVX-512)
+ * against the delimiters per step using the incubating Vector API.
+ *
+ * This class needs the jdk.incubator.vector module, so it is kept out of src and
+ * compiled separately:
+ *
+ *     javac --add-modules jdk.incubator.vector -cp bin -d bin src-vector/VectorDelimiterFinder.java
+ *
+ * Run with --add-modules jdk.incubator.vector and DelimiterFinder.select() will pick it up.
+ */
+class VectorDelimiterFinder implements DelimiterFinder {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public long mask(ByteBuffer buffer, int from, int to, byte a, byte b) {
+        int end = Math.min(to, from + BLOCK_SIZE);
+        long mask = 0;
+        int i = from;
+        for (; i + LANES <= end; i += LANES) {
+            ByteVector bytes = ByteVector.fromByteBuffer(SPECIES, buffer, i, ByteOrder.nativeOrder());
+            VectorMask<Byte> matches = bytes.eq(a).or(bytes.eq(b));
+            mask |= matches.toLong() << (i - from);
+        }
+        for (; i < end; i++) {
+            byte current = buffer.get(i);
+            if (current == a || current == b) {
+                mask |= 1L << (i - from);
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public int indexOf(ByteBuffer buffer, int from, int to, byte a, byte b) {
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            ByteVector bytes = ByteVector.fromByteBuffer(SPECIES, buffer, i, ByteOrder.nativeOrder());
+            VectorMask<Byte> matches = bytes.eq(a).or(bytes.eq(b));
+            if (matches.anyTrue()) {
+                return i + matches.firstTrue();
+            }
+        }
+        for (; i < to; i++) {
+            byte current = buffer.get(i);
+            if (current == a || current == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.Arrays;
+
+/**
+ * BucketStats holds count, sum, min and max of a reading per time bucket, e.g.
+ * per day or per month, for a group-by-time aggregation.
+ *
+ * Buckets are numbered consecutively by TimeBucket.ordinal, so the statistics live
+ * in four primitive arrays indexed by bucket number relative to the earliest bucket
+ * seen; adding a reading is an index computation and four array updates, with no
+ * map lookup or boxing. The arrays cover every bucket from the earliest to the
+ * latest reading, including empty ones, and grow at either end as readings arrive
+ * in any order.
+ */
+public class BucketStats implements PartialAggregate<BucketStats> {
+
+    /** Widest range of buckets kept, e.g. about 1900 years of hours. */
+    public static final int MAX_BUCKETS = 1 << 24;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final TimeBucket bucket;
+    private long firstOrdinal;  // Bucket number of slot 0
+    private int size;           // Slots in use, from the earliest to the latest bucket
+    private long[] counts = new long[0];
+    private double[] sums = new double[0];
+    private double[] mins = new double[0];
+    private double[] maxs = new double[0];
+
+    /**
+     * @param bucket The bucket width.
+     */
+    public BucketStats(TimeBucket bucket) {
+        this.bucket = bucket;
+    }
+
+    /**
+     * Adds one reading.
+     *
+     * @param epochSecond The time of the reading in epoch seconds.
+     * @param value The reading.
+     * @throws IllegalArgumentException if the reading would widen the range past MAX_BUCKETS.
+     */
+    public void add(long epochSecond, double value) {
+        int slot = slot(bucket.ordinal(epochSecond));
+        counts[slot]++;
+        sums[slot] += value;
+        if (value < mins[slot]) {
+            mins[slot] = value;
+        }
+        if (value > maxs[slot]) {
+            maxs[slot] = value;
+        }
+    }
+
+    /**
+     * Combines these statistics with another set over the same bucket width.
+     *
+     * @param other The other statistics.
+     * @return New statistics holding both.
+     */
+    @Override
+    public BucketStats merge(BucketStats other) {
+        if (other.bucket != bucket) {
+            throw new IllegalArgumentException("Cannot merge " + other.bucket + " buckets into " + bucket + " buckets");
+        }
+        BucketStats merged = new BucketStats(bucket);
+        for (BucketStats part : new BucketStats[] {this, other}) {
+            for (int i = 0; i < part.size; i++) {
+                if (part.counts[i] == 0) {
+                    continue;
+                }
+                int slot = merged.slot(part.firstOrdinal + i);
+                merged.counts[slot] += part.counts[i];
+                merged.sums[slot] += part.sums[i];
+                merged.mins[slot] = Math.min(merged.mins[slot], part.mins[i]);
+                merged.maxs[slot] = Math.max(merged.maxs[slot], part.maxs[i]);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @return The bucket width.
+     */
+    public TimeBucket getBucket() {
+        return bucket;
+    }
+
+    /**
+     * @return The number of buckets from the earliest to the latest reading, including empty ones.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The start of the bucket in epoch seconds.
+     */
+    public long getStart(int index) {
+        checkIndex(index);
+        return bucket.startOf(firstOrdinal + index);
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The number of readings in the bucket.
+     */
+    public long getCount(int index) {
+        checkIndex(index);
+        return counts[index];
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The sum of the bucket's readings; 0 for an empty bucket.
+     */
+    public double getSum(int index) {
+        checkIndex(index);
+        return sums[index];
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The average of the bucket's readings, or Double.NaN for an empty bucket.
+     */
+    public double getMean(int index) {
+        checkIndex(index);
+        return counts[index] > 0 ? sums[index] / counts[index] : Double.NaN;
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The lowest reading of the bucket, or Double.NaN for an empty bucket.
+     */
+    public double getMin(int index) {
+        checkIndex(index);
+        return counts[index] > 0 ? mins[index] : Double.NaN;
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The highest reading of the bucket, or Double.NaN for an empty bucket.
+     */
+    public double getMax(int index) {
+        checkIndex(index);
+        return counts[index] > 0 ? maxs[index] : Double.NaN;
+    }
+
+    /** Returns the array index of a bucket number, growing the arrays to reach it. */
+    private int slot(long ordinal) {
+        if (size == 0) {
+            firstOrdinal = ordinal;
+            grow(0, INITIAL_CAPACITY);
+            size = 1;
+            return 0;
+        }
+        if (ordinal < firstOrdinal) {
+            long shift = firstOrdinal - ordinal;
+            checkRange(shift + size);
+            grow((int) shift, Math.max(counts.length, (int) shift + size));
+            firstOrdinal = ordinal;
+            size += (int) shift;
+            return 0;
+        }
+        long offset = ordinal - firstOrdinal;
+        if (offset >= size) {
+            checkRange(offset + 1);
+            if (offset >= counts.length) {
+                grow(0, (int) offset + 1);
+            }
+            size = (int) offset + 1;
+        }
+        return (int) offset;
+    }
+
+    /** Reallocates the arrays with room for at least minCapacity slots, moving the used ones up by shift. */
+    private void grow(int shift, int minCapacity) {
+        int capacity = counts.length;
+        if (shift == 0 && minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = (int) Math.min(MAX_BUCKETS, Math.max((long) minCapacity, capacity * 2L));
+        long[] newCounts = new long[newCapacity];
+        double[] newSums = new double[newCapacity];
+        double[] newMins = new double[newCapacity];
+        double[] newMaxs = new double[newCapacity];
+        Arrays.fill(newMins, Double.POSITIVE_INFINITY);
+        Arrays.fill(newMaxs, Double.NEGATIVE_INFINITY);
+        System.arraycopy(counts, 0, newCounts, shift, size);
+        System.arraycopy(sums, 0, newSums, shift, size);
+        System.arraycopy(mins, 0, newMins, shift, size);
+        System.arraycopy(maxs, 0, newMaxs, shift, size);
+        counts = newCounts;
+        sums = newSums;
+        mins = newMins;
+        maxs = newMaxs;
+    }
+
+    private void checkRange(long buckets) {
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Readings span more than " + MAX_BUCKETS + " " + bucket + " buckets");
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
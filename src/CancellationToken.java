@@ -0,0 +1,87 @@
+import java.time.Duration;
+
+/**
+ * CancellationToken lets the caller of a long multi-file analysis stop it early,
+ * for example when the client that asked for it has gone away.
+ *
+ * Cancellation is cooperative: the scans check the token between units of work
+ * (a file, a batch of small files, or a byte range of a large one) and skip the
+ * units that have not started yet, so the work in flight finishes and the rest is
+ * shed. A token can also carry a deadline, after which it counts as cancelled on
+ * its own. The analyses then return what they have as a PartialResult.
+ */
+public final class CancellationToken {
+
+    private final boolean hasDeadline;
+    private final long deadline; // System.nanoTime() value; only meaningful with hasDeadline
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a token without a deadline, cancelled only by cancel().
+     */
+    public CancellationToken() {
+        this.hasDeadline = false;
+        this.deadline = 0;
+    }
+
+    private CancellationToken(long deadline) {
+        this.hasDeadline = true;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a token that cancels itself once a timeout has passed.
+     *
+     * @param timeout The time the analysis may take, starting now.
+     * @return The new token.
+     */
+    public static CancellationToken withTimeout(Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        long nanos;
+        try {
+            nanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            nanos = Long.MAX_VALUE / 2; // Some 146 years, as good as no deadline
+        }
+        return new CancellationToken(System.nanoTime() + nanos);
+    }
+
+    /**
+     * Cancels the analyses using this token. Calling it again has no effect.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if cancel() was called or the deadline has passed.
+     */
+    public boolean isCancelled() {
+        return cancelled || isDeadlineExpired();
+    }
+
+    /**
+     * @return true if the token has a deadline and it has passed.
+     */
+    public boolean isDeadlineExpired() {
+        return hasDeadline && System.nanoTime() - deadline >= 0; // Difference, as nanoTime may wrap
+    }
+
+    /**
+     * @return Why the token is cancelled ("cancelled" or "deadline expired"), or null if it is not.
+     */
+    public String getReason() {
+        if (cancelled) {
+            return "cancelled";
+        }
+        return isDeadlineExpired() ? "deadline expired" : null;
+    }
+
+    @Override
+    public String toString() {
+        String reason = getReason();
+        return "CancellationToken [" + (reason != null ? reason : "active") + "]";
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ColdestFileMetric finds the file with the coldest temperature and summarizes it
+ * as a FileSummary, optionally with all of its valid (time, temperature) readings
+ * and the listing of its temperatures as written in the file.
+ * Only the summary of the coldest file so far is kept; ties keep the earlier file.
+ * Files without any valid temperature are recorded, so callers can note them.
+ */
+public class ColdestFileMetric implements WeatherMetric {
+
+    private final boolean keepSeries;
+
+    private int tempColumn;
+    private int dateColumn;
+    private int currentInput;
+    private MinReading currentLowest;
+    private long currentLowestTime;
+    private ReadingSeries currentSeries;
+    private List<String> currentListing;
+
+    private FileSummary coldest;
+    private final List<String> emptyInputs = new ArrayList<>();
+
+    /**
+     * @param keepSeries Whether to collect each file's readings and listing for the summary.
+     */
+    public ColdestFileMetric(boolean keepSeries) {
+        this.keepSeries = keepSeries;
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        tempColumn = scanner.requireColumn(WeatherSchema.TEMPERATURE);
+        dateColumn = scanner.schema().dateUtc();
+        currentInput = inputIndex;
+        currentLowest = new MinReading();
+        currentLowestTime = WeatherTime.UNKNOWN;
+        currentSeries = keepSeries ? new ReadingSeries() : null;
+        currentListing = keepSeries ? new ArrayList<>() : null;
+        return new int[] {tempColumn, dateColumn};
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        if (keepSeries) {
+            list(scanner);
+        }
+        double temp = scanner.readingOrNaN(tempColumn, "temperature");
+        if (Double.isNaN(temp)) {
+            return;
+        }
+        long time = WeatherTime.UNKNOWN;
+        if (keepSeries) {
+            time = scanner.getDateUtc(dateColumn);
+            currentSeries.add(time, temp);
+        }
+        if (currentLowest.offer(temp, scanner)) {
+            currentLowestTime = keepSeries ? time : scanner.getDateUtc(dateColumn);
+        }
+    }
+
+    @Override
+    public void end(WeatherScanner scanner) {
+        if (currentLowest.isEmpty()) {
+            emptyInputs.add(scanner.name());
+        } else if (coldest == null || currentLowest.getValue() < coldest.getMinimum()) {
+            coldest = new FileSummary(scanner.name(), currentInput, currentLowest.getValue(),
+                                      currentLowest.getRecord(), currentLowestTime, currentSeries, currentListing);
+        }
+        currentLowest = null;
+        currentSeries = null; // Losing files' readings can be collected right away
+        currentListing = null;
+    }
+
+    /** Adds the current record's DateUTC and TemperatureF, as written, to the listing. */
+    private void list(WeatherScanner scanner) {
+        String temperature = scanner.getString(tempColumn);
+        // Only list if temperature is valid
+        if (!temperature.equals("-9999")) {
+            String time = scanner.isSet(dateColumn) ? scanner.getString(dateColumn) : "Unknown Time";
+            currentListing.add(time + ": " + temperature);
+        }
+    }
+
+    /**
+     * @return The names of the inputs scanned without any valid temperature, in scan order.
+     */
+    public List<String> getEmptyInputs() {
+        return emptyInputs;
+    }
+
+    /**
+     * @return The summary of the coldest file, or null if no file had a valid temperature.
+     */
+    public FileSummary getColdest() {
+        return coldest;
+    }
+}
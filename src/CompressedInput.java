@@ -0,0 +1,102 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * CompressedInput opens gzip-compressed weather files (.csv.gz) as streams of
+ * CSV text, using the JDK's GZIPInputStream with large buffers. ZIP archive
+ * entries (ZipWeatherArchive) are inflated on the same pool.
+ *
+ * Inflation can run on the shared decompression pool through a ReadAheadInputStream,
+ * so the thread that parses a file does not also have to inflate it.
+ */
+public final class CompressedInput {
+
+    /** Buffer size for the compressed input and for the inflated blocks handed to the parser. */
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    /** Smallest buffer used for inputs of known size. */
+    static final int MIN_BUFFER_SIZE = 8 * 1024;
+
+    /** Inflated blocks a read-ahead stream may hold before the inflater waits for the parser. */
+    static final int READ_AHEAD_BLOCKS = 4;
+
+    /** Threads of the shared decompression pool. */
+    static final int POOL_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final ExecutorService DECOMPRESSION_POOL = Executors.newFixedThreadPool(
+            POOL_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "weather-decompression");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private CompressedInput() {
+    }
+
+    /**
+     * @param file A file name to check.
+     * @return true if the file is gzip-compressed, judging by its .gz extension.
+     */
+    public static boolean isGzip(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Opens a gzip file for reading on the calling thread.
+     *
+     * @param file The .gz file.
+     * @return A stream of the decompressed bytes.
+     * @throws IOException if the file cannot be opened or is not in gzip format.
+     */
+    public static InputStream openGzip(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a gzip file and starts inflating it on the shared decompression pool.
+     *
+     * @param file The .gz file.
+     * @return A stream of the decompressed bytes, filled in the background.
+     * @throws IOException if the file cannot be opened or is not in gzip format.
+     */
+    public static InputStream openGzipReadAhead(File file) throws IOException {
+        return readAhead(openGzip(file), -1);
+    }
+
+    /**
+     * Starts reading a stream, typically an inflating one, on the shared decompression pool.
+     *
+     * @param in The stream to read ahead. It is closed when reading ends.
+     * @param sizeHint The number of bytes the stream will deliver, or -1 if unknown.
+     * @return A stream of the same bytes, filled in the background.
+     */
+    public static InputStream readAhead(InputStream in, long sizeHint) {
+        return new ReadAheadInputStream(in, DECOMPRESSION_POOL, bufferSize(sizeHint), READ_AHEAD_BLOCKS);
+    }
+
+    /**
+     * Picks a block or buffer size for a stream, so small inputs such as the daily
+     * files of an archive do not each allocate full-size buffers.
+     *
+     * @param sizeHint The number of bytes the stream will deliver, or -1 if unknown.
+     * @return A size between MIN_BUFFER_SIZE and BUFFER_SIZE.
+     */
+    static int bufferSize(long sizeHint) {
+        if (sizeHint < 0) {
+            return BUFFER_SIZE;
+        }
+        return (int) Math.max(MIN_BUFFER_SIZE, Math.min(BUFFER_SIZE, sizeHint + 1)); // +1 so EOF is seen in one read
+    }
+}
@@ -0,0 +1,62 @@
+import java.nio.ByteBuffer;
+
+/**
+ * DelimiterFinder locates structural bytes (commas, newlines, quotes) in a
+ * buffer several bytes at a time. WeatherScanner uses it for the inner loops
+ * that walk a record.
+ *
+ * Two implementations exist. VectorDelimiterFinder uses the incubating Vector API
+ * (jdk.incubator.vector) and compares 32 or 64 bytes per instruction; its source
+ * lives in src-vector because it needs --add-modules jdk.incubator.vector to compile
+ * and run. SwarDelimiterFinder compares 8 bytes at a time in a long and works
+ * everywhere. select() picks the vector one when it is available.
+ */
+public interface DelimiterFinder {
+
+    /** Number of bytes covered by one mask. */
+    int BLOCK_SIZE = 64;
+
+    /**
+     * Builds a bit mask of the positions holding a or b.
+     *
+     * @param buffer The buffer to search.
+     * @param from The first index to examine.
+     * @param to One past the last index that may be examined.
+     * @param a The first byte to look for.
+     * @param b The second byte to look for.
+     * @return A mask with bit i set if buffer[from + i] is a or b, for i below
+     * min(BLOCK_SIZE, to - from).
+     */
+    long mask(ByteBuffer buffer, int from, int to, byte a, byte b);
+
+    /**
+     * Finds the first position holding a or b.
+     *
+     * @param buffer The buffer to search.
+     * @param from The first index to examine.
+     * @param to One past the last index to examine.
+     * @param a The first byte to look for.
+     * @param b The second byte to look for.
+     * @return The index of the first match, or to if there is none.
+     */
+    int indexOf(ByteBuffer buffer, int from, int to, byte a, byte b);
+
+    /**
+     * Returns the fastest implementation usable in this JVM: the Vector API one if the
+     * jdk.incubator.vector module is loaded and VectorDelimiterFinder is on the class
+     * path, otherwise the SWAR one.
+     *
+     * @return A shared, thread-safe DelimiterFinder.
+     */
+    static DelimiterFinder select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (DelimiterFinder) Class.forName("VectorDelimiterFinder")
+                                              .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not compiled in, or the module could not be linked; use the scalar path
+            }
+        }
+        return new SwarDelimiterFinder();
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.List;
+
+/**
+ * FileSummary is what a multi-file analysis learned about one file: its lowest
+ * reading, the record and time of that reading and, if requested, all of the
+ * file's valid readings as a ReadingSeries together with the listing of its
+ * readings as written in the file. Reports are printed from it without reading
+ * the file again, so files and streams are reported alike.
+ */
+public class FileSummary {
+
+    private final String name;
+    private final int inputIndex;
+    private final double minimum;
+    private final WeatherRecord minimumRecord;
+    private final long minimumTime;
+    private final ReadingSeries series;
+    private final List<String> listing;
+
+    /**
+     * @param name The name of the file.
+     * @param inputIndex The position of the file in the analyzed list.
+     * @param minimum The lowest reading.
+     * @param minimumRecord The record holding the lowest reading.
+     * @param minimumTime The DateUTC of that record in epoch seconds, or WeatherTime.UNKNOWN.
+     * @param series All valid readings of the file, or null if not collected.
+     * @param listing The lines listing the file's readings, or null if not collected.
+     */
+    public FileSummary(String name, int inputIndex, double minimum, WeatherRecord minimumRecord,
+                       long minimumTime, ReadingSeries series, List<String> listing) {
+        this.name = name;
+        this.inputIndex = inputIndex;
+        this.minimum = minimum;
+        this.minimumRecord = minimumRecord;
+        this.minimumTime = minimumTime;
+        this.series = series;
+        this.listing = listing;
+    }
+
+    /**
+     * @return The name of the file.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The position of the file in the analyzed list.
+     */
+    public int getInputIndex() {
+        return inputIndex;
+    }
+
+    /**
+     * @return The lowest reading of the file.
+     */
+    public double getMinimum() {
+        return minimum;
+    }
+
+    /**
+     * @return The record holding the lowest reading; the first one on a tie.
+     */
+    public WeatherRecord getMinimumRecord() {
+        return minimumRecord;
+    }
+
+    /**
+     * @return The DateUTC of the lowest reading in epoch seconds, or WeatherTime.UNKNOWN.
+     */
+    public long getMinimumTime() {
+        return minimumTime;
+    }
+
+    /**
+     * @return All valid readings of the file in file order, or null if they were not collected.
+     */
+    public ReadingSeries getSeries() {
+        return series;
+    }
+
+    /**
+     * @return One "DateUTC: TemperatureF" line per record that has a temperature other than -9999,
+     * with both fields as written in the file, or null if they were not collected.
+     */
+    public List<String> getListing() {
+        return listing;
+    }
+
+    @Override
+    public String toString() {
+        return "FileSummary [name=" + name + ", minimum=" + minimum
+               + ", at " + WeatherTime.formatDateUtc(minimumTime) + "]";
+    }
+}
@@ -0,0 +1,62 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * FileWeatherInput is a weather file on disk. Plain files are memory-mapped by
+ * WeatherScanner; .gz files are inflated as a stream.
+ */
+final class FileWeatherInput implements WeatherInput {
+
+    private final File file;
+
+    FileWeatherInput(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public String name() {
+        return file.getName();
+    }
+
+    @Override
+    public WeatherScanner open() throws IOException {
+        return WeatherScanner.open(file);
+    }
+
+    @Override
+    public WeatherScanner openAt(long offset) throws IOException {
+        return isCompressed() ? open() : WeatherScanner.open(file, offset, Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isSplittable() {
+        return !isCompressed();
+    }
+
+    @Override
+    public WeatherScanner openRange(long rangeStart, long rangeEnd) throws IOException {
+        return WeatherScanner.open(file, rangeStart, rangeEnd);
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return CompressedInput.isGzip(file) ? CompressedInput.openGzip(file) : new FileInputStream(file);
+    }
+
+    @Override
+    public boolean isCompressed() {
+        return CompressedInput.isGzip(file);
+    }
+
+    @Override
+    public long size() {
+        return isCompressed() ? -1 : file.length();
+    }
+
+    @Override
+    public String toString() {
+        return file.getPath();
+    }
+}
@@ -0,0 +1,195 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * IoScheduler reads many small inputs, such as the one-file-per-day layout of
+ * nc_weather, with their I/O overlapped and their parsing spread over a fixed number
+ * of CPU threads.
+ *
+ * For daily files of a few kilobytes, opening the file and waiting for its bytes
+ * takes longer than scanning them, so one thread per core would mostly sit blocked.
+ * Here I/O threads open each input and read it whole into a byte array, and a
+ * separate fixed pool of parser threads, one per core by default, scans the arrays
+ * in memory (WeatherScanner.open(byte[], ...)). I/O threads are virtual threads when
+ * the JVM has them (Java 21+) and a bounded pool of platform threads otherwise.
+ *
+ * A semaphore caps the inputs in flight: a permit is taken before an input is read
+ * and given back only after it has been parsed. That keeps enough reads outstanding
+ * to keep the disk busy without letting read-ahead buffers pile up when parsing is
+ * the slower side. Only inputs up to MAX_BUFFERED_SIZE are read into memory, so the
+ * buffers held at once never exceed maxInFlight times that. Compressed and larger
+ * inputs are left to the parser threads, which open them as usual (streamed or
+ * memory-mapped).
+ *
+ * Results come back in list order, as with ParallelInputScan, so reducing them keeps
+ * "the first record wins a tie".
+ */
+public class IoScheduler implements AutoCloseable {
+
+    /** Inputs read or parsed at once. Enough to keep an SSD's queue busy with small reads. */
+    public static final int DEFAULT_IN_FLIGHT = 64;
+
+    /**
+     * Largest input read whole into memory; bigger ones are memory-mapped by the parser
+     * threads. Daily files are a few kilobytes, so this fits them with room to spare and
+     * bounds read-ahead to DEFAULT_IN_FLIGHT MB.
+     */
+    static final long MAX_BUFFERED_SIZE = 1024 * 1024;
+
+    private final Semaphore inFlight;
+    private final ExecutorService ioThreads;
+    private final ExecutorService parserThreads;
+    private final boolean virtual;
+
+    /**
+     * Creates a scheduler with DEFAULT_IN_FLIGHT inputs in flight and one parser thread per core.
+     */
+    public IoScheduler() {
+        this(DEFAULT_IN_FLIGHT, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxInFlight The most inputs being read or parsed at once.
+     * @param parsers The number of parser threads.
+     */
+    public IoScheduler(int maxInFlight, int parsers) {
+        if (maxInFlight < 1 || parsers < 1) {
+            throw new IllegalArgumentException("Need at least one input in flight and one parser: "
+                                               + maxInFlight + ", " + parsers);
+        }
+        this.inFlight = new Semaphore(maxInFlight);
+        ExecutorService virtualThreads = newVirtualThreadExecutor();
+        this.virtual = virtualThreads != null;
+        this.ioThreads = virtual ? virtualThreads : Executors.newFixedThreadPool(maxInFlight, daemonThreads("weather-io"));
+        this.parserThreads = Executors.newFixedThreadPool(parsers, daemonThreads("weather-parser"));
+    }
+
+    /**
+     * Reads and scans each input.
+     *
+     * @param inputs The inputs to scan.
+     * @param scanInput Scans one input, given its position and a scanner over it.
+     * Runs on a parser thread.
+     * @return One result per input, in list order; null for inputs that could not be
+     * read (reported on System.err) and for inputs whose scan returned null.
+     */
+    public <R> List<R> scanEach(List<? extends WeatherInput> inputs,
+                                BiFunction<Integer, WeatherScanner, R> scanInput) {
+        List<CompletableFuture<R>> pending = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            int index = i;
+            WeatherInput input = inputs.get(i);
+            inFlight.acquireUninterruptibly(); // Submitting in list order, so reads roughly follow it
+            CompletableFuture<R> result;
+            try {
+                result = CompletableFuture.supplyAsync(() -> read(input), ioThreads)
+                        .thenApplyAsync(bytes -> parse(index, input, bytes, scanInput), parserThreads);
+            } catch (RuntimeException e) {
+                inFlight.release(); // Rejected, e.g. after close()
+                throw e;
+            }
+            result.whenComplete((value, error) -> inFlight.release());
+            pending.add(result);
+        }
+
+        List<R> ordered = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                ordered.add(pending.get(i).join());
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof UncheckedIOException)) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+                System.err.println("Error reading file: " + inputs.get(i).name()
+                                   + " (" + e.getCause().getCause().getMessage() + ")");
+                ordered.add(null);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Reads and scans each input and merges the results in list order. Each input's
+     * result is marked with endInput() first, as it covers the whole input.
+     *
+     * @param inputs The inputs to scan.
+     * @param scanInput Scans one input, given its position and a scanner over it.
+     * @return The merged result, or null if no input could be read.
+     */
+    public <R extends PartialAggregate<R>> R scan(List<? extends WeatherInput> inputs,
+                                                  BiFunction<Integer, WeatherScanner, R> scanInput) {
+        List<R> results = new ArrayList<>(scanEach(inputs, scanInput));
+        results.removeIf(result -> result == null);
+        results.replaceAll(result -> result.endInput());
+        return results.isEmpty() ? null : PartialAggregate.reduce(results);
+    }
+
+    /**
+     * @return true if the I/O threads are virtual threads.
+     */
+    public boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    /**
+     * Stops the I/O and parser threads once the work already submitted is done.
+     */
+    @Override
+    public void close() {
+        ioThreads.shutdown();
+        parserThreads.shutdown();
+    }
+
+    /** Reads a small uncompressed input whole; returns null for inputs the parser should open itself. */
+    private static byte[] read(WeatherInput input) {
+        long size = input.size();
+        if (input.isCompressed() || size < 0 || size > MAX_BUFFERED_SIZE) {
+            return null;
+        }
+        try (InputStream in = input.openStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <R> R parse(int index, WeatherInput input, byte[] bytes,
+                               BiFunction<Integer, WeatherScanner, R> scanInput) {
+        try (WeatherScanner scanner = bytes != null
+                ? WeatherScanner.open(bytes, bytes.length, input.name())
+                : input.open()) {
+            return scanInput.apply(index, scanner);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Returns Executors.newVirtualThreadPerTaskExecutor() on Java 21+, or null before. */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
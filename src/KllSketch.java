@@ -0,0 +1,371 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * KllSketch estimates quantiles (median, p5, p95, ...) of a stream of readings in
+ * a small, fixed amount of memory, using the KLL algorithm (Karnin, Lang and Liberty,
+ * "Optimal Quantile Approximation in Streams", 2016).
+ *
+ * Readings enter level 0. When the sketch is full, the lowest over-full level is
+ * sorted and every other item (starting at a random offset) is promoted to the next
+ * level with double the weight, the rest are dropped. Level h may hold about
+ * k * (2/3)^(top - h) items, so the whole sketch keeps roughly 3k values however
+ * many readings it has seen (about 600 doubles for the default k = 200).
+ *
+ * Error bounds: a quantile query returns a reading whose true rank is within
+ * epsilon * n of the requested rank, where n is the number of readings. For the
+ * default k = 200, epsilon is about 1.3% with 99% confidence (the usual empirical
+ * KLL bound, 2.296 / k^0.9723); doubling k roughly halves it. The bound holds for
+ * any input order and survives any sequence of merges. The minimum and maximum
+ * are kept exactly, so quantile(0) and quantile(1) are exact.
+ *
+ * Sketches are mergeable, so per-file sketches can be combined into per-year ones,
+ * and serializable with toByteArray/fromByteArray, so they can be stored and
+ * combined later without rescanning. Each sketch draws its coin flips from its own
+ * seed: sketches that are later merged must not share flips, or their errors add up
+ * instead of cancelling out. Seeds come from a fixed sequence, so a program that
+ * creates its sketches in the same order gets the same results on every run.
+ */
+public class KllSketch implements PartialAggregate<KllSketch> {
+
+    /** Default accuracy parameter; about 1.3% rank error. */
+    public static final int DEFAULT_K = 200;
+
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final double LEVEL_RATIO = 2.0 / 3.0;
+    private static final int FORMAT = 0x4B4C4C31; // "KLL1"
+    private static final AtomicLong SEEDS = new AtomicLong(0x5DEECE66DL);
+
+    private final int k;
+    private final Random random = new Random(SEEDS.getAndAdd(0x9E3779B97F4A7C15L));
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Creates a sketch with the default accuracy.
+     */
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k The accuracy parameter, at least 8. The rank error is roughly 2.3 / k^0.97.
+     */
+    public KllSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY || k > 65535) {
+            throw new IllegalArgumentException("k must be between " + MIN_LEVEL_CAPACITY + " and 65535: " + k);
+        }
+        this.k = k;
+        levels[0] = new double[k];
+    }
+
+    /**
+     * Adds a reading. NaN readings are ignored.
+     *
+     * @param value The reading.
+     */
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else if (value < min) {
+            min = value;
+        } else if (value > max) {
+            max = value;
+        }
+        count++;
+        append(0, value);
+        compressIfFull();
+    }
+
+    /**
+     * Combines this sketch with another. Neither input is changed.
+     *
+     * @param other The other sketch; must have the same k.
+     * @return A sketch of both streams.
+     */
+    @Override
+    public KllSketch merge(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge sketches with k " + k + " and " + other.k);
+        }
+        KllSketch merged = copy();
+        if (other.count == 0) {
+            return merged;
+        }
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                merged.append(h, other.levels[h][i]);
+            }
+        }
+        merged.min = count == 0 ? other.min : Math.min(min, other.min);
+        merged.max = count == 0 ? other.max : Math.max(max, other.max);
+        merged.count = count + other.count;
+        merged.compressIfFull();
+        return merged;
+    }
+
+    /**
+     * Estimates a quantile.
+     *
+     * @param fraction The rank as a fraction, e.g. 0.5 for the median or 0.95 for p95.
+     * @return A reading whose rank is within the error bound of fraction * n,
+     * or Double.NaN if the sketch is empty.
+     */
+    public double quantile(double fraction) {
+        if (fraction < 0 || fraction > 1 || Double.isNaN(fraction)) {
+            throw new IllegalArgumentException("Quantile fraction must be between 0 and 1: " + fraction);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0) {
+            return min;
+        }
+        if (fraction == 1) {
+            return max;
+        }
+        double[] values = new double[retained()];
+        long[] weights = new long[values.length];
+        sortedItems(values, weights);
+        double target = fraction * count;
+        long cumulative = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Estimates the fraction of readings at or below a value.
+     *
+     * @param value The value.
+     * @return The estimated normalized rank, or Double.NaN if the sketch is empty.
+     */
+    public double rank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long below = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                if (levels[h][i] <= value) {
+                    below += 1L << h;
+                }
+            }
+        }
+        return (double) below / count;
+    }
+
+    /**
+     * @return The number of readings the sketch has seen.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The smallest reading, or Double.NaN if there is none.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return The largest reading, or Double.NaN if there is none.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return The accuracy parameter.
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * @return The number of values held, a measure of the sketch's memory use.
+     */
+    public int retained() {
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        return total;
+    }
+
+    // === Serialization ===
+
+    /**
+     * Encodes the sketch, e.g. to store per-file sketches and merge them later.
+     *
+     * @return The encoded sketch.
+     */
+    public byte[] toByteArray() {
+        ByteBuffer out = ByteBuffer.allocate(4 + 4 + 8 + 8 + 8 + 4 + levels.length * 4 + retained() * 8);
+        out.putInt(FORMAT).putInt(k).putLong(count).putDouble(min).putDouble(max).putInt(levels.length);
+        for (int h = 0; h < levels.length; h++) {
+            out.putInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                out.putDouble(levels[h][i]);
+            }
+        }
+        return out.array();
+    }
+
+    /**
+     * Decodes a sketch written by toByteArray.
+     *
+     * @param bytes The encoded sketch.
+     * @return The sketch.
+     * @throws IllegalArgumentException if the bytes are not an encoded sketch.
+     */
+    public static KllSketch fromByteArray(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (in.getInt() != FORMAT) {
+                throw new IllegalArgumentException("Not an encoded KllSketch");
+            }
+            KllSketch sketch = new KllSketch(in.getInt());
+            sketch.count = in.getLong();
+            sketch.min = in.getDouble();
+            sketch.max = in.getDouble();
+            int levelCount = in.getInt();
+            if (levelCount < 1 || levelCount > 64) {
+                throw new IllegalArgumentException("Corrupt KllSketch: " + levelCount + " levels");
+            }
+            sketch.levels = new double[levelCount][];
+            sketch.sizes = new int[levelCount];
+            long weight = 0;
+            for (int h = 0; h < levelCount; h++) {
+                int size = in.getInt();
+                if (size < 0 || size > in.remaining() / 8) {
+                    throw new IllegalArgumentException("Corrupt KllSketch: level " + h + " holds " + size + " values");
+                }
+                sketch.levels[h] = new double[Math.max(size, MIN_LEVEL_CAPACITY)];
+                for (int i = 0; i < size; i++) {
+                    sketch.levels[h][i] = in.getDouble();
+                }
+                sketch.sizes[h] = size;
+                weight += (long) size << h;
+            }
+            if (weight != sketch.count || in.hasRemaining()) {
+                throw new IllegalArgumentException("Corrupt KllSketch: weights do not add up to its count");
+            }
+            return sketch;
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated KllSketch", e);
+        }
+    }
+
+    // === Compaction ===
+
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(LEVEL_RATIO, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < levels.length; h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    private void compressIfFull() {
+        while (retained() > totalCapacity()) {
+            for (int h = 0; h < levels.length; h++) {
+                if (sizes[h] >= capacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Halves a level: sorts it and promotes every other item to the next level. */
+    private void compact(int level) {
+        if (level == levels.length - 1) {
+            levels = Arrays.copyOf(levels, levels.length + 1);
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+            levels[level + 1] = new double[MIN_LEVEL_CAPACITY];
+        }
+        double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        int paired = size & ~1; // With an odd count, the largest item stays behind
+        for (int i = random.nextBoolean() ? 1 : 0; i < paired; i += 2) {
+            append(level + 1, items[i]);
+        }
+        if (paired < size) {
+            items[0] = items[size - 1];
+        }
+        sizes[level] = size - paired;
+    }
+
+    private void append(int level, double value) {
+        while (level >= levels.length) {
+            levels = Arrays.copyOf(levels, levels.length + 1);
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+            levels[levels.length - 1] = new double[MIN_LEVEL_CAPACITY];
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    /** Fills values and weights with all retained items, sorted by value. */
+    private void sortedItems(double[] values, long[] weights) {
+        Integer[] order = new Integer[values.length];
+        int n = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n] = 1L << h;
+                order[n] = n;
+                n++;
+            }
+        }
+        double[] unsortedValues = values.clone();
+        long[] unsortedWeights = weights.clone();
+        Arrays.sort(order, (a, b) -> Double.compare(unsortedValues[a], unsortedValues[b]));
+        for (int i = 0; i < n; i++) {
+            values[i] = unsortedValues[order[i]];
+            weights[i] = unsortedWeights[order[i]];
+        }
+    }
+
+    private KllSketch copy() {
+        KllSketch copy = new KllSketch(k);
+        copy.levels = new double[levels.length][];
+        for (int h = 0; h < levels.length; h++) {
+            copy.levels[h] = levels[h].clone();
+        }
+        copy.sizes = sizes.clone();
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "KllSketch [k=" + k + ", n=" + count + ", retained=" + retained()
+               + ", median=" + quantile(0.5) + "]";
+    }
+}
@@ -0,0 +1,306 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LowestReadings keeps the k lowest readings of a scan, e.g. the 100 coldest hours
+ * of a decade, in a bounded heap of primitives: the value plus the input ordinal,
+ * record number and byte offset of its record. No record is decoded while scanning;
+ * materialize() re-reads only the records that made the final cut.
+ *
+ * Readings are ranked by value, then by input ordinal, then by offset, so ties go to
+ * the record seen first, as in the strict < comparisons of WeatherDataParser. That
+ * order does not depend on the order readings are offered in. Heaps for consecutive
+ * parts, such as chunks of one file, are combined with merge(): as in MinReading,
+ * addRecords() and endInput() let it renumber the readings of a later chunk relative
+ * to the whole file.
+ */
+public class LowestReadings implements PartialAggregate<LowestReadings> {
+
+    private final int capacity;
+    private int size;
+    // Max-heap on (value, input, offset): the root is the reading that is dropped first
+    private double[] values;
+    private int[] inputs;
+    private long[] recordNumbers;
+    private long[] offsets;
+    private boolean[] inLead;  // The reading belongs to the part's first input, so may need renumbering
+    private long records;      // Records scanned to produce this heap
+    private long trailRecords; // Records of the input the part ends in, for renumbering
+    private boolean crossesInput;
+
+    /**
+     * @param capacity The number of readings to keep, k.
+     */
+    public LowestReadings(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Must keep at least one reading: " + capacity);
+        }
+        this.capacity = capacity;
+        int initial = Math.min(capacity, 64); // Grows up to capacity, so a large k costs nothing up front
+        values = new double[initial];
+        inputs = new int[initial];
+        recordNumbers = new long[initial];
+        offsets = new long[initial];
+        inLead = new boolean[initial];
+    }
+
+    /**
+     * Offers the current record of a scanner.
+     *
+     * @param value The reading of the record.
+     * @param input The position of the scanned input in the input list.
+     * @param scanner The scanner positioned on the record.
+     * @return true if the reading is kept, for now.
+     */
+    public boolean offer(double value, int input, WeatherScanner scanner) {
+        return offer(value, input, scanner.recordNumber(), scanner.recordOffset());
+    }
+
+    /**
+     * Offers a reading.
+     *
+     * @param value The reading. NaN is ignored.
+     * @param input The position of its input in the input list.
+     * @param recordNumber The 1-based number of its record in the input.
+     * @param offset The byte offset of its record in the input.
+     * @return true if the reading is kept, for now.
+     */
+    public boolean offer(double value, int input, long recordNumber, long offset) {
+        return offer(value, input, recordNumber, offset, !crossesInput);
+    }
+
+    private boolean offer(double value, int input, long recordNumber, long offset, boolean lead) {
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        if (size < capacity) {
+            if (size == values.length) {
+                grow();
+            }
+            set(size, value, input, recordNumber, offset, lead);
+            siftUp(size++);
+            return true;
+        }
+        if (!ranksBefore(value, input, offset, 0)) {
+            return false; // Not lower than the k-th lowest, or tied with it but seen later
+        }
+        set(0, value, input, recordNumber, offset, lead);
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Adds to the number of records scanned, so later parts can be renumbered on merge.
+     *
+     * @param count The number of records scanned.
+     */
+    public void addRecords(long count) {
+        records += count;
+        trailRecords += count;
+    }
+
+    /**
+     * Marks the end of an input: the part merged after this one starts a new input,
+     * so its record numbers are already right.
+     *
+     * @return This heap.
+     */
+    @Override
+    public LowestReadings endInput() {
+        crossesInput = true;
+        trailRecords = 0;
+        return this;
+    }
+
+    /**
+     * Combines this heap with the heap for the part right after it. Readings the
+     * later part took from the input this part ends in are renumbered to continue
+     * this part's numbering. Neither heap is changed.
+     *
+     * @param later The heap for the following part.
+     * @return A heap of the lowest readings of both, with this heap's capacity.
+     */
+    @Override
+    public LowestReadings merge(LowestReadings later) {
+        LowestReadings merged = new LowestReadings(capacity);
+        merged.records = records + later.records;
+        merged.crossesInput = crossesInput || later.crossesInput;
+        merged.trailRecords = later.crossesInput ? later.trailRecords : trailRecords + later.trailRecords;
+        for (int i = 0; i < size; i++) {
+            merged.offer(values[i], inputs[i], recordNumbers[i], offsets[i], inLead[i]);
+        }
+        for (int i = 0; i < later.size; i++) {
+            long recordNumber = later.inLead[i] ? trailRecords + later.recordNumbers[i] : later.recordNumbers[i];
+            merged.offer(later.values[i], later.inputs[i], recordNumber, later.offsets[i],
+                         !crossesInput && later.inLead[i]);
+        }
+        return merged;
+    }
+
+    /**
+     * @return The number of readings kept, at most k.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of records scanned, as counted by addRecords.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return The number of readings to keep, k.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Reads the winning records back from their inputs. Each input holding a winner
+     * is opened once and read up to its last winning record, so the cost grows with
+     * the number of winners, not with the number of inputs scanned.
+     *
+     * @param inputList The inputs the readings were taken from, in the same order.
+     * @return The readings from lowest to highest; ties in the order they were seen.
+     * Readings whose input can no longer be read are reported and left out.
+     */
+    public List<RankedReading> materialize(List<? extends WeatherInput> inputList) {
+        int[] order = rankOrder();
+        WeatherRecord[] records = new WeatherRecord[size];
+        Integer[] byPosition = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            byPosition[i] = order[i];
+        }
+        Arrays.sort(byPosition, (a, b) -> inputs[a] != inputs[b] ? Integer.compare(inputs[a], inputs[b])
+                                          : Long.compare(offsets[a], offsets[b]));
+        int start = 0;
+        while (start < size) {
+            int end = start;
+            while (end < size && inputs[byPosition[end]] == inputs[byPosition[start]]) {
+                end++;
+            }
+            readRecords(inputList.get(inputs[byPosition[start]]), byPosition, start, end, records);
+            start = end;
+        }
+        List<RankedReading> ranked = new ArrayList<>(size);
+        for (int slot : order) {
+            if (records[slot] != null) {
+                ranked.add(new RankedReading(values[slot], inputs[slot],
+                                             inputList.get(inputs[slot]).name(), records[slot]));
+            }
+        }
+        return ranked;
+    }
+
+    /** Reads the records of one input, whose heap slots are byPosition[start, end) in offset order. */
+    private void readRecords(WeatherInput input, Integer[] byPosition, int start, int end, WeatherRecord[] records) {
+        try (WeatherScanner scanner = input.openAt(offsets[byPosition[start]])) {
+            scanner.project(new int[0]); // Only record boundaries are needed until a winner is reached
+            int next = start;
+            while (next < end && scanner.next()) {
+                long offset = scanner.recordOffset();
+                while (next < end && offsets[byPosition[next]] < offset) {
+                    next++; // The input changed since it was scanned
+                }
+                while (next < end && offsets[byPosition[next]] == offset) {
+                    int slot = byPosition[next++];
+                    records[slot] = scanner.toRecord().renumbered(recordNumbers[slot]);
+                }
+            }
+            if (next < end) {
+                System.err.println("Warning: " + (end - next) + " record(s) no longer found in file: " + input.name());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading file: " + input.name() + " (" + e.getMessage() + ")");
+        }
+    }
+
+    /** Returns the heap slots from lowest to highest reading. */
+    private int[] rankOrder() {
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (a, b) -> ranksBefore(values[a], inputs[a], offsets[a], b) ? -1
+                                     : ranksBefore(values[b], inputs[b], offsets[b], a) ? 1 : 0);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = slots[i];
+        }
+        return order;
+    }
+
+    // === Heap ===
+
+    /** Whether a reading ranks strictly before the one in a slot. */
+    private boolean ranksBefore(double value, int input, long offset, int slot) {
+        if (value != values[slot]) {
+            return value < values[slot];
+        }
+        if (input != inputs[slot]) {
+            return input < inputs[slot];
+        }
+        return offset < offsets[slot];
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!ranksBefore(values[parent], inputs[parent], offsets[parent], slot)) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && ranksBefore(values[child], inputs[child], offsets[child], child + 1)) {
+                child++; // The later-ranked of the two children
+            }
+            if (!ranksBefore(values[slot], inputs[slot], offsets[slot], child)) {
+                return;
+            }
+            swap(slot, child);
+            slot = child;
+        }
+    }
+
+    private void set(int slot, double value, int input, long recordNumber, long offset, boolean lead) {
+        values[slot] = value;
+        inputs[slot] = input;
+        recordNumbers[slot] = recordNumber;
+        offsets[slot] = offset;
+        inLead[slot] = lead;
+    }
+
+    private void swap(int a, int b) {
+        double value = values[a];
+        int input = inputs[a];
+        long recordNumber = recordNumbers[a];
+        long offset = offsets[a];
+        boolean lead = inLead[a];
+        set(a, values[b], inputs[b], recordNumbers[b], offsets[b], inLead[b]);
+        set(b, value, input, recordNumber, offset, lead);
+    }
+
+    private void grow() {
+        int length = (int) Math.min((long) values.length * 2, capacity);
+        values = Arrays.copyOf(values, length);
+        inputs = Arrays.copyOf(inputs, length);
+        recordNumbers = Arrays.copyOf(recordNumbers, length);
+        offsets = Arrays.copyOf(offsets, length);
+        inLead = Arrays.copyOf(inLead, length);
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * LowestReadingsMetric collects the k lowest valid readings of a column across the
+ * inputs of a scan, e.g. the 100 coldest hours, in a LowestReadings heap. Missing
+ * readings are skipped, and ties keep the earliest records.
+ */
+public class LowestReadingsMetric implements WeatherMetric {
+
+    private final String column;
+    private final String label;
+    private final LowestReadings lowest;
+
+    private int valueColumn;
+    private int currentInput;
+
+    /**
+     * @param column The column to rank, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param k The number of readings to keep.
+     */
+    public LowestReadingsMetric(String column, String label, int k) {
+        this.column = column;
+        this.label = label;
+        this.lowest = new LowestReadings(k);
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        valueColumn = scanner.requireColumn(column);
+        currentInput = inputIndex;
+        return new int[] {valueColumn};
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        lowest.offer(scanner.readingOrNaN(valueColumn, label), currentInput, scanner); // NaN is ignored
+    }
+
+    /**
+     * @return The heap of the lowest readings so far, not yet materialized.
+     */
+    public LowestReadings getReadings() {
+        return lowest;
+    }
+}
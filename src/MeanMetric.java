@@ -0,0 +1,71 @@
+/**
+ * MeanMetric averages the valid readings of a column. Records with a missing or
+ * unparsable reading are skipped. Averages over the records matching a condition,
+ * such as the average temperature when humidity is 80 or more, are WeatherQuery
+ * metrics.
+ */
+public class MeanMetric implements WeatherMetric {
+
+    private final String column;
+    private final String label;
+    private final int input;
+    private final RunningMean mean = new RunningMean();
+
+    private int valueColumn;
+
+    /**
+     * Creates a metric over every input of the scan.
+     *
+     * @param column The column to average, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     */
+    public MeanMetric(String column, String label) {
+        this(column, label, ALL_INPUTS);
+    }
+
+    /**
+     * Creates a metric over one input of the scan.
+     *
+     * @param column The column to average, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param input The position of the input in the scan, or ALL_INPUTS.
+     */
+    public MeanMetric(String column, String label, int input) {
+        this.column = column;
+        this.label = label;
+        this.input = input;
+    }
+
+    @Override
+    public boolean reads(int inputIndex) {
+        return input == ALL_INPUTS || input == inputIndex;
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        valueColumn = scanner.requireColumn(column);
+        return new int[] {valueColumn};
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        double reading = scanner.readingOrNaN(valueColumn, label);
+        if (!Double.isNaN(reading)) {
+            mean.add(reading);
+        }
+    }
+
+    /**
+     * @return The average of the accepted readings, or Double.NaN if there are none.
+     */
+    public double mean() {
+        return mean.mean();
+    }
+
+    /**
+     * @return The number of accepted readings.
+     */
+    public long getCount() {
+        return mean.getCount();
+    }
+}
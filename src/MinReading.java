@@ -0,0 +1,116 @@
+/**
+ * MinReading tracks the lowest reading of a column and the record it came from,
+ * e.g. the coldest hour or the lowest humidity of a file, part of a file, or many files.
+ *
+ * Ties keep the earlier record, as in the strict < comparisons of WeatherDataParser.
+ * Results for consecutive parts are combined with merge(). When the parts are
+ * chunks of the same file, the winning record is renumbered relative to the whole
+ * file; results that end with endInput() are not, since the part after them starts
+ * a new file. That bookkeeping makes merge associative, so per-chunk and per-file
+ * results can be reduced in any tree shape with the same answer.
+ */
+public class MinReading implements PartialAggregate<MinReading> {
+
+    private double value;
+    private WeatherRecord record; // null until a reading has been offered
+    private long records;         // Records scanned to produce this result
+    private long trailRecords;    // Records of the input the part ends in, for renumbering
+    private boolean crossesInput;
+    private boolean winnerInLead = true; // The winner belongs to the part's first input
+
+    /**
+     * Offers the current record of a scanner as a candidate minimum. The record is
+     * only materialized when it becomes the new minimum.
+     *
+     * @param candidate The reading of the current record.
+     * @param scanner The scanner positioned on the record.
+     * @return true if the record is the new minimum.
+     */
+    public boolean offer(double candidate, WeatherScanner scanner) {
+        if (record == null || candidate < value) {
+            value = candidate;
+            record = scanner.toRecord();
+            winnerInLead = !crossesInput;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds to the number of records scanned, so later parts can be renumbered on merge.
+     *
+     * @param count The number of records scanned.
+     */
+    public void addRecords(long count) {
+        records += count;
+        trailRecords += count;
+    }
+
+    /**
+     * Marks the end of an input: the part merged after this one starts a new input,
+     * so its record numbers are already right.
+     *
+     * @return This result.
+     */
+    @Override
+    public MinReading endInput() {
+        crossesInput = true;
+        trailRecords = 0;
+        return this;
+    }
+
+    /**
+     * Combines this result with the result for the part right after it.
+     *
+     * @param later The result for the following part.
+     * @return The combined result; on a tie this part's record wins.
+     */
+    @Override
+    public MinReading merge(MinReading later) {
+        MinReading merged = new MinReading();
+        merged.records = records + later.records;
+        merged.crossesInput = crossesInput || later.crossesInput;
+        merged.trailRecords = later.crossesInput ? later.trailRecords : trailRecords + later.trailRecords;
+        if (later.record != null && (record == null || later.value < value)) {
+            merged.value = later.value;
+            // Only a winner from the input this part ends in continues its numbering
+            merged.record = later.winnerInLead
+                    ? later.record.renumbered(trailRecords + later.record.getRecordNumber())
+                    : later.record;
+            merged.winnerInLead = !crossesInput && later.winnerInLead;
+        } else {
+            merged.value = value;
+            merged.record = record;
+            merged.winnerInLead = winnerInLead;
+        }
+        return merged;
+    }
+
+    /**
+     * @return true if no reading has been offered.
+     */
+    public boolean isEmpty() {
+        return record == null;
+    }
+
+    /**
+     * @return The lowest reading, or Double.NaN if there is none.
+     */
+    public double getValue() {
+        return record == null ? Double.NaN : value;
+    }
+
+    /**
+     * @return The record holding the lowest reading, or null if there is none.
+     */
+    public WeatherRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * @return The number of records scanned.
+     */
+    public long getRecords() {
+        return records;
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MinimumMetric finds the lowest valid reading of a column, e.g. the coldest
+ * hour or the lowest humidity, and the input it came from.
+ * Missing readings are skipped, and ties keep the earliest record. Inputs without
+ * any valid reading are recorded, so callers can note them.
+ */
+public class MinimumMetric implements WeatherMetric {
+
+    private final String column;
+    private final String label;
+    private final int input;
+    private final MinReading lowest = new MinReading();
+
+    private int valueColumn;
+    private int currentInput;
+    private int winningInput = -1;
+    private boolean foundInInput;
+    private final List<String> emptyInputs = new ArrayList<>();
+
+    /**
+     * Creates a metric over every input of the scan.
+     *
+     * @param column The column to minimize, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     */
+    public MinimumMetric(String column, String label) {
+        this(column, label, ALL_INPUTS);
+    }
+
+    /**
+     * Creates a metric over one input of the scan.
+     *
+     * @param column The column to minimize, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param input The position of the input in the scan, or ALL_INPUTS.
+     */
+    public MinimumMetric(String column, String label, int input) {
+        this.column = column;
+        this.label = label;
+        this.input = input;
+    }
+
+    @Override
+    public boolean reads(int inputIndex) {
+        return input == ALL_INPUTS || input == inputIndex;
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        valueColumn = scanner.requireColumn(column);
+        currentInput = inputIndex;
+        foundInInput = false;
+        return new int[] {valueColumn};
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        double reading = scanner.readingOrNaN(valueColumn, label);
+        if (Double.isNaN(reading)) {
+            return;
+        }
+        if (lowest.offer(reading, scanner)) {
+            winningInput = currentInput;
+        }
+        foundInInput = true;
+    }
+
+    @Override
+    public void end(WeatherScanner scanner) {
+        if (!foundInInput) {
+            emptyInputs.add(scanner.name());
+        }
+    }
+
+    /**
+     * @return The names of the inputs scanned without any valid reading, in scan order.
+     */
+    public List<String> getEmptyInputs() {
+        return emptyInputs;
+    }
+
+    /**
+     * @return The lowest reading, or Double.NaN if there is none.
+     */
+    public double getValue() {
+        return lowest.getValue();
+    }
+
+    /**
+     * @return The record holding the lowest reading, or null if there is none.
+     */
+    public WeatherRecord getRecord() {
+        return lowest.getRecord();
+    }
+
+    /**
+     * @return The position of the input holding the lowest reading, or -1 if there is none.
+     */
+    public int getInputIndex() {
+        return winningInput;
+    }
+}
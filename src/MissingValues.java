@@ -0,0 +1,117 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * MissingValues is the set of sentinel strings that mark a reading as missing,
+ * such as "-9999" for TemperatureF and "N/A" for Humidity.
+ *
+ * Sentinels are matched against the raw bytes of a field. Most fields are
+ * rejected by their length or first byte alone, so checking a present value
+ * costs a couple of comparisons and a missing one is found without decoding.
+ */
+public final class MissingValues {
+
+    /** The markers used in the Duke weather files. */
+    public static final MissingValues DEFAULT = new MissingValues("-9999", "N/A");
+
+    /** Treats nothing as missing. */
+    public static final MissingValues NONE = new MissingValues();
+
+    private static final int MAX_LENGTH = 63; // Longest sentinel that fits the length mask
+
+    private final String[] sentinels;
+    private final byte[][] sentinelBytes;
+    private final long lengthMask;            // Bit n set if some sentinel has n bytes
+    private final boolean[] firstBytes = new boolean[256];
+
+    private MissingValues(String... sentinels) {
+        this.sentinels = sentinels.clone();
+        this.sentinelBytes = new byte[sentinels.length][];
+        long mask = 0;
+        for (int i = 0; i < sentinels.length; i++) {
+            byte[] bytes = sentinels[i].getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0 || bytes.length > MAX_LENGTH) {
+                throw new IllegalArgumentException("Missing value marker must be 1 to " + MAX_LENGTH
+                                                   + " bytes long: \"" + sentinels[i] + "\"");
+            }
+            sentinelBytes[i] = bytes;
+            mask |= 1L << bytes.length;
+            firstBytes[bytes[0] & 0xFF] = true;
+        }
+        this.lengthMask = mask;
+    }
+
+    /**
+     * Creates a set of missing value markers.
+     *
+     * @param sentinels The exact field values that mean "no reading".
+     * @return The new set.
+     */
+    public static MissingValues of(String... sentinels) {
+        return new MissingValues(sentinels);
+    }
+
+    /**
+     * Creates a set with extra markers added to this one.
+     *
+     * @param extraSentinels Additional field values that mean "no reading".
+     * @return The new set.
+     */
+    public MissingValues with(String... extraSentinels) {
+        String[] combined = Arrays.copyOf(sentinels, sentinels.length + extraSentinels.length);
+        System.arraycopy(extraSentinels, 0, combined, sentinels.length, extraSentinels.length);
+        return new MissingValues(combined);
+    }
+
+    /**
+     * Checks whether bytes [start, end) of a buffer are one of the sentinels.
+     *
+     * @param buffer The buffer holding the field.
+     * @param start Index of the first byte of the field.
+     * @param end Index one past the last byte of the field.
+     * @return true if the field is a missing value marker.
+     */
+    public boolean matches(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length <= 0 || length > MAX_LENGTH || (lengthMask & (1L << length)) == 0
+                || !firstBytes[buffer.get(start) & 0xFF]) {
+            return false;
+        }
+        for (byte[] sentinel : sentinelBytes) {
+            if (sentinel.length == length && regionEquals(buffer, start, sentinel)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a decoded value is one of the sentinels.
+     *
+     * @param value The field value.
+     * @return true if the value is a missing value marker.
+     */
+    public boolean matches(String value) {
+        for (String sentinel : sentinels) {
+            if (sentinel.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionEquals(ByteBuffer buffer, int start, byte[] sentinel) {
+        for (int i = 0; i < sentinel.length; i++) {
+            if (buffer.get(start + i) != sentinel[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "MissingValues " + Arrays.toString(sentinels);
+    }
+}
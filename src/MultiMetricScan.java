@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MultiMetricScan computes several WeatherMetrics in a single pass over a list of inputs.
+ *
+ * Callers register metrics with add() and then call scan(). Each input is opened
+ * once, projected onto the union of the columns its metrics read, and every record
+ * is handed to each of those metrics in turn. Computing the coldest hour, the lowest
+ * humidity and two averages this way costs one read of the data instead of four.
+ */
+public class MultiMetricScan {
+
+    private final List<WeatherMetric> metrics = new ArrayList<>();
+
+    /**
+     * Registers a metric.
+     *
+     * @param metric The metric to compute.
+     * @return The same metric, for reading its result after the scan.
+     */
+    public <M extends WeatherMetric> M add(M metric) {
+        metrics.add(metric);
+        return metric;
+    }
+
+    /**
+     * Scans each input once, updating all registered metrics. Inputs that cannot
+     * be read are reported and skipped, as in the multi-file methods.
+     *
+     * @param inputs The inputs to scan, in order.
+     */
+    public void scan(List<? extends WeatherInput> inputs) {
+        try (ScannerPrefetcher prefetcher = new ScannerPrefetcher(inputs)) {
+            for (int i = 0; i < inputs.size(); i++) {
+                if (!anyReads(i)) {
+                    continue; // No metric needs this input; don't even open it
+                }
+                try (WeatherScanner scanner = prefetcher.open(i)) {
+                    scan(i, scanner);
+                } catch (IOException | UncheckedIOException e) {
+                    System.err.println("Error reading file: " + inputs.get(i).name() + " (" + e.getMessage() + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans one already opened input, e.g. a stream, updating the metrics that read it.
+     *
+     * @param inputIndex The position of the input, as seen by the metrics.
+     * @param scanner The scanner positioned before the first record.
+     */
+    public void scan(int inputIndex, WeatherScanner scanner) {
+        List<WeatherMetric> active = new ArrayList<>();
+        List<int[]> columns = new ArrayList<>();
+        int columnCount = 0;
+        for (WeatherMetric metric : metrics) {
+            if (metric.reads(inputIndex)) {
+                int[] metricColumns = metric.begin(inputIndex, scanner);
+                active.add(metric);
+                columns.add(metricColumns);
+                columnCount += metricColumns.length;
+            }
+        }
+        if (active.isEmpty()) {
+            return;
+        }
+        int[] union = new int[columnCount];
+        int n = 0;
+        for (int[] metricColumns : columns) {
+            System.arraycopy(metricColumns, 0, union, n, metricColumns.length);
+            n += metricColumns.length;
+        }
+        scanner.project(union);
+
+        WeatherMetric[] perRecord = active.toArray(new WeatherMetric[0]);
+        if (perRecord.length == 1) {
+            perRecord[0].acceptAll(scanner); // Lets a lone metric run its own loop
+            perRecord[0].end(scanner);
+            return;
+        }
+        while (scanner.next()) {
+            for (WeatherMetric metric : perRecord) {
+                metric.accept(scanner);
+            }
+        }
+        for (WeatherMetric metric : perRecord) {
+            metric.end(scanner);
+        }
+    }
+
+    private boolean anyReads(int inputIndex) {
+        for (WeatherMetric metric : metrics) {
+            if (metric.reads(inputIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+
+/**
+ * ParallelInputScan scans the inputs of a multi-file analysis concurrently on a
+ * ForkJoinPool, one task per input, and hands back the per-input results in list
+ * order, whatever order the tasks finished in.
+ *
+ * The list of inputs is split in half recursively, as ParallelWeatherScan splits a
+ * file, so idle workers steal whole halves of the remaining inputs and a year of
+ * daily files spreads evenly over the pool. Reducing the results in list order,
+ * earlier one first, keeps "the first record wins a tie" exactly as in the
+ * sequential methods. Warnings printed while scanning may interleave between
+ * inputs; read errors are reported after the scan, in list order. With a
+ * CancellationToken, inputs not yet started when it is cancelled are skipped.
+ */
+public final class ParallelInputScan {
+
+    private ParallelInputScan() {
+    }
+
+    /**
+     * Scans each input on the pool.
+     *
+     * @param inputs The inputs to scan.
+     * @param pool The pool that runs the scans.
+     * @param scanInput Scans one input, given its position and a scanner over it.
+     * @return One result per input, in list order; null for inputs that could not be
+     * read (reported on System.err) and for inputs whose scan returned null.
+     */
+    public static <R> List<R> scanEach(List<? extends WeatherInput> inputs, ForkJoinPool pool,
+                                       BiFunction<Integer, WeatherScanner, R> scanInput) {
+        return scanEach(inputs, pool, null, scanInput).getValue();
+    }
+
+    /**
+     * Scans each input on the pool until the token is cancelled; inputs not started
+     * by then are skipped.
+     *
+     * @param inputs The inputs to scan.
+     * @param pool The pool that runs the scans.
+     * @param token Checked before each input; null for none.
+     * @param scanInput Scans one input, given its position and a scanner over it.
+     * @return One result per input, in list order, null for inputs that could not be
+     * read or were skipped, and how many inputs were scanned.
+     */
+    public static <R> PartialResult<List<R>> scanEach(List<? extends WeatherInput> inputs, ForkJoinPool pool,
+                                                      CancellationToken token,
+                                                      BiFunction<Integer, WeatherScanner, R> scanInput) {
+        Object[] results = new Object[inputs.size()];
+        String[] errors = new String[inputs.size()];
+        boolean[] skipped = new boolean[inputs.size()];
+        if (!inputs.isEmpty()) {
+            pool.invoke(new InputTask<>(inputs, 0, inputs.size(), token, scanInput, results, errors, skipped));
+        }
+        List<R> ordered = new ArrayList<>(results.length);
+        int inputsSkipped = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (skipped[i]) {
+                inputsSkipped++;
+            }
+            if (errors[i] != null) {
+                System.err.println("Error reading file: " + inputs.get(i).name() + " (" + errors[i] + ")");
+            }
+            @SuppressWarnings("unchecked") // Only scanInput's results are stored
+            R result = (R) results[i];
+            ordered.add(result);
+        }
+        return new PartialResult<>(ordered, inputs.size(), inputsSkipped, token != null ? token.getReason() : null);
+    }
+
+    /**
+     * Scans each input on the pool and merges the results in list order. Each input's
+     * result is marked with endInput() first, as it covers the whole input.
+     *
+     * @param inputs The inputs to scan.
+     * @param pool The pool that runs the scans.
+     * @param scanInput Scans one input, given its position and a scanner over it.
+     * @return The merged result, or null if no input could be read.
+     */
+    public static <R extends PartialAggregate<R>> R scan(List<? extends WeatherInput> inputs, ForkJoinPool pool,
+                                                         BiFunction<Integer, WeatherScanner, R> scanInput) {
+        List<R> results = new ArrayList<>(scanEach(inputs, pool, scanInput));
+        results.removeIf(result -> result == null);
+        results.replaceAll(result -> result.endInput());
+        return results.isEmpty() ? null : PartialAggregate.reduce(results);
+    }
+
+    /** Scans inputs [first, last) by splitting the interval in half until one input is left. */
+    private static class InputTask<R> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends WeatherInput> inputs;
+        private final int first;
+        private final int last;
+        private final CancellationToken token;
+        private final BiFunction<Integer, WeatherScanner, R> scanInput;
+        private final Object[] results;
+        private final String[] errors;
+        private final boolean[] skipped;
+
+        InputTask(List<? extends WeatherInput> inputs, int first, int last, CancellationToken token,
+                  BiFunction<Integer, WeatherScanner, R> scanInput, Object[] results, String[] errors,
+                  boolean[] skipped) {
+            this.inputs = inputs;
+            this.first = first;
+            this.last = last;
+            this.token = token;
+            this.scanInput = scanInput;
+            this.results = results;
+            this.errors = errors;
+            this.skipped = skipped;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first == 1) {
+                if (token != null && token.isCancelled()) {
+                    skipped[first] = true;
+                    return;
+                }
+                try (WeatherScanner scanner = inputs.get(first).open()) {
+                    results[first] = scanInput.apply(first, scanner);
+                } catch (IOException | UncheckedIOException e) {
+                    errors[first] = e.getMessage(); // Each task writes only its own slot
+                }
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            invokeAll(new InputTask<>(inputs, first, middle, token, scanInput, results, errors, skipped),
+                      new InputTask<>(inputs, middle, last, token, scanInput, results, errors, skipped));
+        }
+    }
+}
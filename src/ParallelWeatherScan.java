@@ -0,0 +1,109 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * ParallelWeatherScan splits one large weather file into byte ranges and scans
+ * them on a ForkJoinPool.
+ *
+ * Each range is read by its own WeatherScanner, which moves the range start to
+ * the next record boundary, so every record is scanned by exactly one task.
+ * Partial results are merged pairwise, always as merge(earlier, later), so a
+ * merge function that keeps the earlier value on a tie gives the same answer
+ * as a single sequential scan.
+ *
+ * Compressed files cannot be split, so they are scanned as a single range.
+ */
+public final class ParallelWeatherScan {
+
+    /** Bytes per range. Large enough that per-range setup is negligible. */
+    public static final long DEFAULT_CHUNK_SIZE = 32L * 1024 * 1024;
+
+    private ParallelWeatherScan() {
+    }
+
+    /**
+     * Scans a file in parallel.
+     *
+     * @param file The CSV file to scan.
+     * @param pool The pool that runs the range scans.
+     * @param chunkSize The number of bytes per range.
+     * @param scanChunk Scans one range and returns its partial result.
+     * @param merge Combines the results of two adjacent ranges, earlier one first.
+     * @return The merged result for the whole file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static <R> R scan(File file, ForkJoinPool pool, long chunkSize,
+                             Function<WeatherScanner, R> scanChunk, BinaryOperator<R> merge) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        long size = CompressedInput.isGzip(file) ? 0 : file.length();
+        int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        try {
+            return pool.invoke(new ChunkTask<>(file, chunkSize, 0, chunks, scanChunk, merge));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Scans a file in parallel with the default chunk size.
+     *
+     * @param file The CSV file to scan.
+     * @param pool The pool that runs the range scans.
+     * @param scanChunk Scans one range and returns its partial result.
+     * @param merge Combines the results of two adjacent ranges, earlier one first.
+     * @return The merged result for the whole file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static <R> R scan(File file, ForkJoinPool pool,
+                             Function<WeatherScanner, R> scanChunk, BinaryOperator<R> merge) throws IOException {
+        return scan(file, pool, DEFAULT_CHUNK_SIZE, scanChunk, merge);
+    }
+
+    /** Scans chunks [first, last) by splitting the interval in half until one chunk is left. */
+    private static class ChunkTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final File file;
+        private final long chunkSize;
+        private final int first;
+        private final int last;
+        private final Function<WeatherScanner, R> scanChunk;
+        private final BinaryOperator<R> merge;
+
+        ChunkTask(File file, long chunkSize, int first, int last,
+                  Function<WeatherScanner, R> scanChunk, BinaryOperator<R> merge) {
+            this.file = file;
+            this.chunkSize = chunkSize;
+            this.first = first;
+            this.last = last;
+            this.scanChunk = scanChunk;
+            this.merge = merge;
+        }
+
+        @Override
+        protected R compute() {
+            if (last - first == 1) {
+                try (WeatherScanner scanner = first == 0 && CompressedInput.isGzip(file)
+                        ? WeatherScanner.open(file)
+                        : WeatherScanner.open(file, first * chunkSize, last * chunkSize)) {
+                    return scanChunk.apply(scanner);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error reading " + file.getName(), e);
+                }
+            }
+            int middle = (first + last) >>> 1;
+            ChunkTask<R> earlier = new ChunkTask<>(file, chunkSize, first, middle, scanChunk, merge);
+            ChunkTask<R> later = new ChunkTask<>(file, chunkSize, middle, last, scanChunk, merge);
+            later.fork();
+            R earlierResult = earlier.compute();
+            return merge.apply(earlierResult, later.join());
+        }
+    }
+}
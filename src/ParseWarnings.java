@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ParseWarnings holds the "Could not parse" warnings of a scanner over part of an
+ * input, such as a block of WeatherPipeline, whose record numbers count from the
+ * start of that part. They are printed once the number of records before the part
+ * is known, so the warnings show the same record numbers as a scan of the whole input.
+ */
+final class ParseWarnings {
+
+    private final List<String> labels = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+    private long[] records = new long[4];
+
+    /**
+     * @param label How the column is called, e.g. "temperature".
+     * @param value The field that is not a number.
+     * @param record Its record number within the part.
+     */
+    void add(String label, String value, long record) {
+        if (labels.size() == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        records[labels.size()] = record;
+        labels.add(label);
+        values.add(value);
+    }
+
+    /**
+     * Prints the warnings to System.err.
+     *
+     * @param recordsBefore The number of records of the input before the part.
+     */
+    void print(long recordsBefore) {
+        for (int i = 0; i < labels.size(); i++) {
+            System.err.println(format(labels.get(i), values.get(i), recordsBefore + records[i]));
+        }
+    }
+
+    /**
+     * @param label How the column is called, e.g. "temperature".
+     * @param value The field that is not a number.
+     * @param record Its record number.
+     * @return The warning for the field.
+     */
+    static String format(String label, String value, long record) {
+        return "Warning: Could not parse " + label + " value: " + value + " in record " + record;
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * PartialAggregate is the result of an analysis over part of the data (a chunk of
+ * a file, a file, or a group of files) that can be combined with the result for
+ * the part right after it. MinReading (min with its record), RunningMean (sum and
+ * count), BucketStats (per-bucket histograms), KllSketch and LowestReadings all
+ * implement it, so any of them can be computed per chunk, per file or per machine
+ * and reduced without going back to the records or re-parsing their strings.
+ *
+ * merge must be associative: (a.merge(b)).merge(c) gives the same result as
+ * a.merge(b.merge(c)). It need not be commutative, since ties go to the earlier
+ * part, so parts are always merged in data order, earlier one first. That is what
+ * lets reduce() combine them as a balanced tree instead of left to right.
+ *
+ * @param <T> The implementing type.
+ */
+public interface PartialAggregate<T extends PartialAggregate<T>> {
+
+    /**
+     * Combines this result with the result for the part right after it.
+     * Neither result is changed.
+     *
+     * @param later The result for the following part.
+     * @return The combined result.
+     */
+    T merge(T later);
+
+    /**
+     * Marks this result as ending at the end of an input, so the part merged after
+     * it starts a new input. Only results that number records within an input, like
+     * MinReading, need to know; for the others this does nothing.
+     *
+     * @return This result.
+     */
+    @SuppressWarnings("unchecked") // T is the implementing type
+    default T endInput() {
+        return (T) this;
+    }
+
+    /**
+     * Merges results in a balanced tree, keeping their order: adjacent pairs first,
+     * then adjacent pairs of those, and so on.
+     *
+     * @param parts The results, in data order.
+     * @return The combined result.
+     * @throws IllegalArgumentException if there are no results.
+     */
+    static <T extends PartialAggregate<T>> T reduce(List<T> parts) {
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("No partial results to reduce");
+        }
+        return reduce(parts, 0, parts.size());
+    }
+
+    /**
+     * Merges results in a balanced tree on a pool, keeping their order. Worth it
+     * when merges are expensive, e.g. for sketches or wide histograms.
+     *
+     * @param parts The results, in data order.
+     * @param pool The pool that runs the merges.
+     * @return The combined result.
+     * @throws IllegalArgumentException if there are no results.
+     */
+    static <T extends PartialAggregate<T>> T reduce(List<T> parts, ForkJoinPool pool) {
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("No partial results to reduce");
+        }
+        return pool.invoke(new ReduceTask<>(parts, 0, parts.size()));
+    }
+
+    private static <T extends PartialAggregate<T>> T reduce(List<T> parts, int first, int last) {
+        if (last - first == 1) {
+            return parts.get(first);
+        }
+        int middle = (first + last) >>> 1;
+        return reduce(parts, first, middle).merge(reduce(parts, middle, last));
+    }
+
+    /** Reduces parts [first, last) by splitting the interval in half, as ParallelWeatherScan does. */
+    final class ReduceTask<T extends PartialAggregate<T>> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+        private static final int SEQUENTIAL_PARTS = 4; // Below this, forking costs more than merging
+
+        private final List<T> parts;
+        private final int first;
+        private final int last;
+
+        ReduceTask(List<T> parts, int first, int last) {
+            this.parts = parts;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected T compute() {
+            if (last - first <= SEQUENTIAL_PARTS) {
+                return reduce(parts, first, last);
+            }
+            int middle = (first + last) >>> 1;
+            ReduceTask<T> later = new ReduceTask<>(parts, middle, last);
+            later.fork();
+            T earlier = new ReduceTask<>(parts, first, middle).compute();
+            return earlier.merge(later.join());
+        }
+    }
+}
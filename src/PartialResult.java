@@ -0,0 +1,100 @@
+import java.util.function.Function;
+
+/**
+ * PartialResult is the answer of an analysis that may have been cut short by a
+ * CancellationToken, together with how much of the input it covers.
+ *
+ * An input is either fully scanned or left out: an input whose scan had not
+ * finished when the token was cancelled does not contribute at all, so the value
+ * is exactly the answer for the inputs scanned. Inputs that could not be read
+ * count as scanned, as they would in an uncancelled run.
+ */
+public final class PartialResult<T> {
+
+    private final T value;
+    private final int inputCount;
+    private final int inputsSkipped;
+    private final String reason;
+
+    /**
+     * @param value The answer for the inputs scanned; may be null.
+     * @param inputCount The number of inputs the analysis was asked to scan.
+     * @param inputsSkipped The number of inputs left out because of cancellation.
+     * @param reason Why inputs were left out, or null if none were.
+     */
+    PartialResult(T value, int inputCount, int inputsSkipped, String reason) {
+        this.value = value;
+        this.inputCount = inputCount;
+        this.inputsSkipped = inputsSkipped;
+        this.reason = inputsSkipped > 0 ? reason : null;
+    }
+
+    /**
+     * Creates the result of an analysis that scanned all of its inputs.
+     *
+     * @param value The answer; may be null.
+     * @param inputCount The number of inputs scanned.
+     * @return The complete result.
+     */
+    public static <T> PartialResult<T> complete(T value, int inputCount) {
+        return new PartialResult<>(value, inputCount, 0, null);
+    }
+
+    /**
+     * Converts the value, keeping the completeness information.
+     *
+     * @param mapper Converts a non-null value; null values stay null.
+     * @return The converted result.
+     */
+    public <U> PartialResult<U> map(Function<? super T, ? extends U> mapper) {
+        return new PartialResult<>(value == null ? null : mapper.apply(value), inputCount, inputsSkipped, reason);
+    }
+
+    /**
+     * @return The answer for the inputs scanned, or null if there is none.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return true if every input was scanned, so the value is the full answer.
+     */
+    public boolean isComplete() {
+        return inputsSkipped == 0;
+    }
+
+    /**
+     * @return The number of inputs the analysis was asked to scan.
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * @return The number of inputs that contributed to the value (or failed to read).
+     */
+    public int getInputsScanned() {
+        return inputCount - inputsSkipped;
+    }
+
+    /**
+     * @return The number of inputs left out because of cancellation.
+     */
+    public int getInputsSkipped() {
+        return inputsSkipped;
+    }
+
+    /**
+     * @return Why inputs were left out ("cancelled" or "deadline expired"), or null if the result is complete.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "PartialResult [value=" + value + ", scanned " + getInputsScanned() + " of " + inputCount + " inputs"
+               + (reason != null ? ", " + reason : "") + "]";
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * QuantileMetric feeds the valid readings of a column into a KllSketch, so medians,
+ * p5 and p95 can be estimated from one streaming pass. Records with a missing
+ * reading are skipped. Like the other metrics it can cover every input of a scan
+ * or a single one, which gives per-file sketches that can be stored and merged later.
+ */
+public class QuantileMetric implements WeatherMetric {
+
+    private final String column;
+    private final String label;
+    private final int input;
+    private final KllSketch sketch;
+
+    private int valueColumn;
+
+    /**
+     * Creates a metric over every input of the scan, with the default sketch accuracy.
+     *
+     * @param column The column to sketch, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     */
+    public QuantileMetric(String column, String label) {
+        this(column, label, ALL_INPUTS, KllSketch.DEFAULT_K);
+    }
+
+    /**
+     * Creates a metric over one input of the scan.
+     *
+     * @param column The column to sketch, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param input The position of the input in the scan, or ALL_INPUTS.
+     * @param k The sketch accuracy parameter; see KllSketch.
+     */
+    public QuantileMetric(String column, String label, int input, int k) {
+        this.column = column;
+        this.label = label;
+        this.input = input;
+        this.sketch = new KllSketch(k);
+    }
+
+    @Override
+    public boolean reads(int inputIndex) {
+        return input == ALL_INPUTS || input == inputIndex;
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        valueColumn = scanner.requireColumn(column);
+        return new int[] {valueColumn};
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        double value = scanner.readingOrNaN(valueColumn, label);
+        if (!Double.isNaN(value)) {
+            sketch.update(value);
+        }
+    }
+
+    /**
+     * @return The sketch of the readings accepted so far.
+     */
+    public KllSketch getSketch() {
+        return sketch;
+    }
+}
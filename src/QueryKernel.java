@@ -0,0 +1,150 @@
+import java.util.List;
+
+/**
+ * QueryKernel evaluates a WeatherQuery over the records of a scan: it checks the
+ * conditions and folds the matching readings into the result.
+ *
+ * The conditions are unpacked into flat arrays (comparison, operand, text bytes and,
+ * per input, column index), and each record walks them in order until one fails.
+ * Scanning and number parsing dominate the cost of a query, so this loop runs as
+ * fast as a kernel generated per query shape, without its class-loading machinery.
+ */
+final class QueryKernel {
+
+    private final WeatherQuery query;
+    private final String[] conditionNames;
+    private final String[] conditionLabels;
+    private final WeatherQuery.Comparison[] comparisons; // null entries are text matches
+    private final double[] operands;
+    private final byte[][] texts;
+    private final int[] conditionColumns;
+
+    private final QueryResult.Accumulator total = new QueryResult.Accumulator();
+    private final BucketStats buckets; // null when the query is not grouped
+    private final String valueLabel;
+    private int valueColumn;
+    private int dateColumn = -1;
+
+    QueryKernel(WeatherQuery query) {
+        this.query = query;
+        List<WeatherQuery.Condition> conditions = query.conditions();
+        int n = conditions.size();
+        this.conditionNames = new String[n];
+        this.conditionLabels = new String[n];
+        this.comparisons = new WeatherQuery.Comparison[n];
+        this.operands = new double[n];
+        this.texts = new byte[n][];
+        this.conditionColumns = new int[n];
+        for (int i = 0; i < n; i++) {
+            conditionNames[i] = conditions.get(i).column;
+            conditionLabels[i] = WeatherSchema.labelOf(conditionNames[i]); // "humidity" rather than "Humidity"
+            comparisons[i] = conditions.get(i).comparison;
+            operands[i] = conditions.get(i).operand;
+            texts[i] = conditions.get(i).textBytes;
+        }
+        this.buckets = query.getBucket() != null ? new BucketStats(query.getBucket()) : null;
+        this.valueLabel = WeatherSchema.labelOf(query.getColumn());
+    }
+
+    /**
+     * Resolves the query's columns against the header of a new input.
+     *
+     * @param scanner The scanner over the input.
+     * @return The columns the query reads.
+     * @throws IllegalArgumentException if a column of the query is not in the input.
+     */
+    int[] bind(WeatherScanner scanner) {
+        int n = conditionColumns.length;
+        int[] columns = new int[n + 2];
+        for (int i = 0; i < n; i++) {
+            conditionColumns[i] = scanner.requireColumn(conditionNames[i]);
+            columns[i] = conditionColumns[i];
+        }
+        valueColumn = scanner.requireColumn(query.getColumn());
+        dateColumn = buckets != null ? scanner.requireColumn(WeatherSchema.DATE_UTC) : -1;
+        columns[n] = valueColumn;
+        columns[n + 1] = dateColumn; // -1 is ignored by project()
+        return columns;
+    }
+
+    /**
+     * Evaluates the query on the current record.
+     *
+     * @param scanner The scanner positioned on the record.
+     */
+    void accept(WeatherScanner scanner) {
+        if (matches(scanner)) {
+            aggregate(scanner);
+        }
+    }
+
+    /**
+     * Evaluates the query on all remaining records of the scanner.
+     *
+     * @param scanner The scanner over the input.
+     */
+    void acceptAll(WeatherScanner scanner) {
+        while (scanner.next()) {
+            if (matches(scanner)) {
+                aggregate(scanner);
+            }
+        }
+    }
+
+    /**
+     * Checks the conditions in order; the first one that fails rejects the record.
+     * A missing or unparsable reading is NaN, which fails every comparison.
+     *
+     * @param scanner The scanner positioned on the record.
+     * @return true if all conditions hold.
+     */
+    private boolean matches(WeatherScanner scanner) {
+        for (int i = 0; i < comparisons.length; i++) {
+            WeatherQuery.Comparison comparison = comparisons[i];
+            if (comparison == null) {
+                if (!scanner.fieldEquals(conditionColumns[i], texts[i])) {
+                    return false;
+                }
+            } else {
+                double value = scanner.readingOrNaN(conditionColumns[i], conditionLabels[i]);
+                if (Double.isNaN(value) || !comparison.test(value, operands[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Folds the current record into the result. Called once all conditions hold.
+     *
+     * @param scanner The scanner positioned on the record.
+     */
+    private void aggregate(WeatherScanner scanner) {
+        double value = scanner.readingOrNaN(valueColumn, valueLabel);
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (buckets != null) {
+            long time = scanner.getDateUtc(dateColumn);
+            if (time == WeatherTime.UNKNOWN) {
+                return;
+            }
+            try {
+                buckets.add(time, value);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Warning: Skipping reading at " + scanner.getString(dateColumn)
+                                   + " in record " + scanner.recordNumber() + " (" + e.getMessage() + ")");
+                return;
+            }
+        }
+        total.add(value);
+    }
+
+    /**
+     * @return The result over everything accepted so far.
+     */
+    QueryResult result() {
+        return new QueryResult(query.getAggregate(), total, buckets);
+    }
+}
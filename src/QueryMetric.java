@@ -0,0 +1,52 @@
+/**
+ * QueryMetric evaluates a WeatherQuery record by record inside a MultiMetricScan.
+ * The work is done by a QueryKernel: conditions are checked in the query's order
+ * (text matches first) and the first failing one rejects the record, before the
+ * aggregated column is parsed.
+ */
+public class QueryMetric implements WeatherMetric {
+
+    private final WeatherQuery query;
+    private final int input;
+    private final QueryKernel kernel;
+
+    QueryMetric(WeatherQuery query, int input) {
+        this.query = query;
+        this.input = input;
+        this.kernel = new QueryKernel(query);
+    }
+
+    @Override
+    public boolean reads(int inputIndex) {
+        return input == ALL_INPUTS || input == inputIndex;
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        return kernel.bind(scanner);
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        kernel.accept(scanner);
+    }
+
+    @Override
+    public void acceptAll(WeatherScanner scanner) {
+        kernel.acceptAll(scanner); // The kernel's own loop, without a call per record
+    }
+
+    /**
+     * @return The query result over everything scanned so far.
+     */
+    public QueryResult getResult() {
+        return kernel.result();
+    }
+
+    /**
+     * @return The query this metric evaluates.
+     */
+    public WeatherQuery getQuery() {
+        return query;
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.Arrays;
+
+/**
+ * QueryResult is the outcome of a WeatherQuery: one value for an ungrouped query,
+ * or one value per non-empty time bucket, in time order, for a grouped one.
+ */
+public class QueryResult {
+
+    private final WeatherQuery.Aggregate aggregate;
+    private final Accumulator total;
+    private final BucketStats stats;  // null for an ungrouped query
+    private final int[] buckets;      // Positions of the non-empty buckets in stats
+
+    QueryResult(WeatherQuery.Aggregate aggregate, Accumulator total, BucketStats stats) {
+        this.aggregate = aggregate;
+        this.total = total;
+        this.stats = stats;
+        int nonEmpty = 0;
+        int[] positions = new int[stats != null ? stats.size() : 0];
+        for (int i = 0; i < positions.length; i++) {
+            if (stats.getCount(i) > 0) {
+                positions[nonEmpty++] = i;
+            }
+        }
+        this.buckets = Arrays.copyOf(positions, nonEmpty);
+    }
+
+    /**
+     * @return The aggregate over all matching readings (all buckets together for
+     * a grouped query), or Double.NaN if none matched. COUNT gives 0 instead.
+     */
+    public double getValue() {
+        return total.value(aggregate);
+    }
+
+    /**
+     * @return The number of matching readings.
+     */
+    public long getCount() {
+        return total.count;
+    }
+
+    /**
+     * @return The number of non-empty buckets; 0 for an ungrouped query.
+     */
+    public int getBucketCount() {
+        return buckets.length;
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The start of the bucket in epoch seconds.
+     */
+    public long getBucketStart(int index) {
+        return stats.getStart(buckets[index]);
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The aggregate over the bucket's matching readings.
+     */
+    public double getBucketValue(int index) {
+        int bucket = buckets[index];
+        switch (aggregate) {
+            case COUNT:
+                return stats.getCount(bucket);
+            case SUM:
+                return stats.getSum(bucket);
+            case MEAN:
+                return stats.getMean(bucket);
+            case MIN:
+                return stats.getMin(bucket);
+            default:
+                return stats.getMax(bucket);
+        }
+    }
+
+    /**
+     * @param index The 0-based bucket position, in time order.
+     * @return The number of matching readings in the bucket.
+     */
+    public long getBucketReadings(int index) {
+        return stats.getCount(buckets[index]);
+    }
+
+    /**
+     * @return All per-bucket statistics of a grouped query, including empty buckets,
+     * or null for an ungrouped query.
+     */
+    public BucketStats getBucketStats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        if (stats == null) {
+            return "QueryResult [" + aggregate + "=" + getValue() + ", count=" + getCount() + "]";
+        }
+        String[] rows = new String[buckets.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = WeatherTime.formatDateUtc(getBucketStart(i)) + "=" + getBucketValue(i);
+        }
+        return "QueryResult [" + aggregate + " by bucket " + Arrays.toString(rows) + "]";
+    }
+
+    /** Count, sum, min and max of a set of readings; enough for every Aggregate. */
+    static final class Accumulator {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        double value(WeatherQuery.Aggregate aggregate) {
+            if (aggregate == WeatherQuery.Aggregate.COUNT) {
+                return count;
+            }
+            if (count == 0) {
+                return Double.NaN;
+            }
+            switch (aggregate) {
+                case SUM:
+                    return sum;
+                case MEAN:
+                    return sum / count;
+                case MIN:
+                    return min;
+                default:
+                    return max;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * RankedReading is one of the k lowest readings found by a LowestReadings scan:
+ * the reading, the input it came from and its materialized record.
+ */
+public class RankedReading {
+
+    private final double value;
+    private final int inputIndex;
+    private final String name;
+    private final WeatherRecord record;
+
+    /**
+     * @param value The reading.
+     * @param inputIndex The position of its input in the analyzed list.
+     * @param name The name of its input.
+     * @param record The record holding the reading.
+     */
+    public RankedReading(double value, int inputIndex, String name, WeatherRecord record) {
+        this.value = value;
+        this.inputIndex = inputIndex;
+        this.name = name;
+        this.record = record;
+    }
+
+    /**
+     * @return The reading.
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return The position of its input in the analyzed list.
+     */
+    public int getInputIndex() {
+        return inputIndex;
+    }
+
+    /**
+     * @return The name of its input.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The record holding the reading.
+     */
+    public WeatherRecord getRecord() {
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        return "RankedReading [value=" + value + ", name=" + name + ", record=" + record.getRecordNumber() + "]";
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReadAheadInputStream reads its source on another thread, a block at a time,
+ * into a small bounded queue. Wrapped around a GZIPInputStream it moves the
+ * decompression off the thread that parses the data, so inflating and parsing
+ * overlap, and several files can be inflated on several cores at once.
+ *
+ * Memory use is bounded by maxBlocks * blockSize per stream. Errors from the
+ * source are rethrown to the reader once the blocks before them are consumed.
+ *
+ * The read-ahead task never waits for the reader: when the queue is full it
+ * returns its thread to the executor, and the reader schedules it again after
+ * taking a block. Streams that are not being read therefore hold no threads, and
+ * any number of them can share a small pool without starving the one in use.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    private static final byte[] END = new byte[0]; // Marks the end of the source
+
+    private final InputStream source;
+    private final int blockSize;
+    private final Executor executor;
+    private final BlockingQueue<byte[]> blocks;
+    private final AtomicBoolean active = new AtomicBoolean(true); // Task scheduled, running or finished
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    private byte[] current = new byte[0];
+    private int currentPos;
+    private boolean ended;
+
+    /**
+     * Starts reading ahead from a source.
+     *
+     * @param source The stream to read. It is closed when reading ends or this stream is closed.
+     * @param executor Runs the read-ahead task.
+     * @param blockSize The number of bytes read per block.
+     * @param maxBlocks The number of blocks that may wait in the queue.
+     */
+    public ReadAheadInputStream(InputStream source, Executor executor, int blockSize, int maxBlocks) {
+        this.source = source;
+        this.blockSize = blockSize;
+        this.executor = executor;
+        this.blocks = new ArrayBlockingQueue<>(maxBlocks + 1); // Room for END
+        executor.execute(this::readAhead);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (currentPos == current.length && !nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - currentPos);
+        System.arraycopy(current, currentPos, b, off, n);
+        currentPos += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        blocks.clear();
+        if (active.compareAndSet(false, true)) {
+            closeSource(); // The task is parked and will not run again
+        }
+    }
+
+    private boolean nextBlock() throws IOException {
+        if (ended || closed) {
+            return false;
+        }
+        byte[] block;
+        try {
+            block = blocks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for input");
+        }
+        if (active.compareAndSet(false, true)) {
+            executor.execute(this::readAhead); // A slot is free again
+        }
+        if (block == END) {
+            ended = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        current = block;
+        currentPos = 0;
+        return true;
+    }
+
+    /** Body of the read-ahead task: fills the free slots of the queue, then parks. */
+    private void readAhead() {
+        try {
+            while (true) {
+                if (closed) {
+                    closeSource();
+                    return;
+                }
+                if (blocks.remainingCapacity() <= 1) { // The last slot is kept for END
+                    active.set(false);
+                    // The reader may have taken a block, or closed, between the check and the flag
+                    if ((closed || blocks.remainingCapacity() > 1) && active.compareAndSet(false, true)) {
+                        continue;
+                    }
+                    return;
+                }
+                byte[] block = new byte[blockSize];
+                int filled = 0;
+                int n;
+                while (filled < blockSize && (n = source.read(block, filled, blockSize - filled)) >= 0) {
+                    filled += n;
+                }
+                if (filled > 0) {
+                    blocks.add(filled == blockSize ? block : Arrays.copyOf(block, filled));
+                }
+                if (filled < blockSize) {
+                    end(null); // End of source
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            end(e);
+        } catch (RuntimeException e) {
+            end(new IOException(e));
+        }
+    }
+
+    /** Closes the source and queues END. The task stays active, so it is never scheduled again. */
+    private void end(IOException error) {
+        failure = error;
+        closeSource();
+        blocks.add(END);
+    }
+
+    private void closeSource() {
+        try {
+            source.close();
+        } catch (IOException e) {
+            // Nothing useful to do; the data has been read or the reader gave up
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.Arrays;
+
+/**
+ * ReadingSeries is a compact list of (time, value) readings, such as all valid
+ * temperatures of one file. Times are DateUTC epoch seconds (WeatherTime) and
+ * values are doubles, each kept in a primitive array, so a day of readings
+ * costs 16 bytes per row instead of a record per row.
+ */
+public class ReadingSeries {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Appends a reading.
+     *
+     * @param time The time of the reading in epoch seconds, or WeatherTime.UNKNOWN.
+     * @param value The reading.
+     */
+    public void add(long time, double value) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        times[size] = time;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * @return The number of readings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The 0-based position of the reading.
+     * @return Its time in epoch seconds, or WeatherTime.UNKNOWN.
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    /**
+     * @param index The 0-based position of the reading.
+     * @return Its value.
+     */
+    public double getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * @return A copy of the times, one per reading.
+     */
+    public long[] times() {
+        return Arrays.copyOf(times, size);
+    }
+
+    /**
+     * @return A copy of the values, one per reading.
+     */
+    public double[] values() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+/**
+ * ResampledSeries is a column of readings on a uniform time grid, as produced by a
+ * Resampler: the time of the first point, the step, and one double per point, NaN
+ * where the readings were too sparse to fill it. The i-th value belongs to time
+ * getStart() + i * getStep(), so series on the same step can be combined index by
+ * index without looking at times.
+ */
+public class ResampledSeries {
+
+    private final long start;
+    private final long step;
+    private final double[] values;
+
+    /**
+     * @param start The time of the first grid point in epoch seconds, or WeatherTime.UNKNOWN if empty.
+     * @param step The spacing of the grid in seconds.
+     * @param values One value per grid point; NaN for gaps.
+     */
+    public ResampledSeries(long start, long step, double[] values) {
+        this.start = start;
+        this.step = step;
+        this.values = values;
+    }
+
+    /**
+     * @return The number of grid points.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return The time of the first grid point in epoch seconds, or WeatherTime.UNKNOWN if empty.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * @return The spacing of the grid in seconds.
+     */
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * @param index The 0-based grid position.
+     * @return The time of the grid point in epoch seconds.
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return start + index * step;
+    }
+
+    /**
+     * @param index The 0-based grid position.
+     * @return The value at the grid point, or Double.NaN for a gap.
+     */
+    public double getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * @return A copy of the values, one per grid point.
+     */
+    public double[] values() {
+        return values.clone();
+    }
+
+    /**
+     * Averages the filled grid points. Unlike a plain average of the readings, each
+     * stretch of time counts the same however densely it was sampled.
+     *
+     * @return The time-weighted average, or Double.NaN if no point is filled.
+     */
+    public double mean() {
+        double sum = 0;
+        int count = 0;
+        for (double value : values) {
+            if (!Double.isNaN(value)) {
+                sum += value;
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    /**
+     * @return The number of grid points that are gaps.
+     */
+    public int gapCount() {
+        int gaps = 0;
+        for (double value : values) {
+            if (Double.isNaN(value)) {
+                gaps++;
+            }
+        }
+        return gaps;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= values.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + values.length);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResampledSeries [start=" + (size() > 0 ? WeatherTime.formatDateUtc(start) : "none")
+               + ", step=" + step + "s, points=" + values.length + ", gaps=" + gapCount() + "]";
+    }
+}
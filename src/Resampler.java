@@ -0,0 +1,129 @@
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Resampler puts an irregular series of readings onto a uniform time grid, e.g. one
+ * value every 30 minutes, as it streams past. Grid points are multiples of the step
+ * in epoch seconds, so the series of different stations line up index for index.
+ *
+ * A grid point takes its value from the readings on either side of it: LINEAR
+ * interpolates between them, PREVIOUS repeats the earlier one. Where the readings
+ * are further apart than the maximum gap, e.g. around a run of -9999 holes, the grid
+ * point is NaN rather than a made-up value. The grid spans from the first reading to
+ * the last one and is never extrapolated beyond them.
+ *
+ * Only the last reading is kept between calls, so memory grows with the grid, not
+ * with the input. Readings must be added in time order; of readings with the same
+ * time, the first one counts.
+ */
+public class Resampler {
+
+    /** How a grid point between two readings gets its value. */
+    public enum Interpolation {
+        /** The straight line between the readings before and after the point. */
+        LINEAR,
+        /** The reading before the point (or at it). */
+        PREVIOUS
+    }
+
+    private static final int MAX_POINTS = 1 << 24; // Guards against junk dates decades apart
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long step;
+    private final Interpolation interpolation;
+    private final long maxGap;
+
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int size;
+    private long start = WeatherTime.UNKNOWN; // Time of the first grid point
+    private long nextPoint;                   // Time of the next grid point to fill
+    private long lastTime = WeatherTime.UNKNOWN;
+    private double lastValue;
+
+    /**
+     * @param step The spacing of the grid, e.g. Duration.ofMinutes(30).
+     * @param interpolation How grid points between readings get their value.
+     * @param maxGap The largest distance between readings (LINEAR), or from the previous
+     * reading (PREVIOUS), that is still filled in; farther points are NaN.
+     */
+    public Resampler(Duration step, Interpolation interpolation, Duration maxGap) {
+        if (step.getSeconds() < 1) {
+            throw new IllegalArgumentException("Grid step must be at least one second: " + step);
+        }
+        if (maxGap.isNegative()) {
+            throw new IllegalArgumentException("Maximum gap must not be negative: " + maxGap);
+        }
+        this.step = step.getSeconds();
+        this.interpolation = interpolation;
+        this.maxGap = maxGap.getSeconds();
+    }
+
+    /**
+     * Adds a reading, filling the grid points up to it.
+     *
+     * @param time The time of the reading in epoch seconds; not before the previous reading.
+     * @param value The reading.
+     * @throws IllegalArgumentException if the reading is older than the previous one,
+     * or too far from the first one for the grid to hold.
+     */
+    public void add(long time, double value) {
+        if (lastTime == WeatherTime.UNKNOWN) {
+            start = -Math.floorDiv(-time, step) * step; // First grid point at or after the reading
+            nextPoint = start;
+            lastTime = time;
+            lastValue = value;
+            return;
+        }
+        if (time < lastTime) {
+            throw new IllegalArgumentException("Reading at " + WeatherTime.formatDateUtc(time)
+                                               + " is older than the previous one");
+        }
+        if (time == lastTime) {
+            return; // The first reading at a time wins
+        }
+        if ((time - start) / step >= MAX_POINTS) {
+            throw new IllegalArgumentException("Reading at " + WeatherTime.formatDateUtc(time) + " is more than "
+                                               + MAX_POINTS + " grid steps after the first one");
+        }
+        boolean bridged = time - lastTime <= maxGap;
+        for (; nextPoint < time; nextPoint += step) {
+            append(pointValue(nextPoint, bridged, time, value));
+        }
+        lastTime = time;
+        lastValue = value;
+    }
+
+    /**
+     * Returns the grid filled so far, up to and including the last reading.
+     *
+     * @return The resampled series; empty if no reading has been added.
+     */
+    public ResampledSeries toSeries() {
+        double[] grid = Arrays.copyOf(values, size + 1);
+        int length = size;
+        if (lastTime != WeatherTime.UNKNOWN && nextPoint == lastTime) {
+            grid[length++] = lastValue; // The last reading falls on a grid point
+        }
+        return new ResampledSeries(start, step, Arrays.copyOf(grid, length));
+    }
+
+    private double pointValue(long point, boolean bridged, long time, double value) {
+        if (point == lastTime) {
+            return lastValue;
+        }
+        if (interpolation == Interpolation.PREVIOUS) {
+            return point - lastTime <= maxGap ? lastValue : Double.NaN;
+        }
+        if (!bridged) {
+            return Double.NaN;
+        }
+        return lastValue + (value - lastValue) * (point - lastTime) / (time - lastTime);
+    }
+
+    private void append(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+}
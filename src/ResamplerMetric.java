@@ -0,0 +1,62 @@
+/**
+ * ResamplerMetric feeds the valid readings of a column, with their DateUTC, into a
+ * Resampler. The resampler is kept across inputs, so the files of one station given
+ * in chronological order end up on one continuous grid. Records with a missing
+ * reading or no valid DateUTC are skipped and become gaps when they are too long,
+ * and readings older than the one before them are skipped with a warning.
+ */
+public class ResamplerMetric implements WeatherMetric {
+
+    private final String column;
+    private final String label;
+    private final Resampler resampler;
+
+    private int valueColumn;
+    private int dateColumn;
+
+    /**
+     * @param column The column to resample, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param resampler The resampler to feed, configured with its grid step.
+     */
+    public ResamplerMetric(String column, String label, Resampler resampler) {
+        this.column = column;
+        this.label = label;
+        this.resampler = resampler;
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        valueColumn = scanner.requireColumn(column);
+        dateColumn = scanner.requireColumn(WeatherSchema.DATE_UTC);
+        return new int[] {valueColumn, dateColumn};
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        if (scanner.isMissing(valueColumn)) {
+            return;
+        }
+        long time = scanner.getDateUtc(dateColumn);
+        if (time == WeatherTime.UNKNOWN) {
+            return;
+        }
+        double value = scanner.readingOrNaN(valueColumn, label);
+        if (Double.isNaN(value)) {
+            return;
+        }
+        try {
+            resampler.add(time, value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Warning: Skipping reading at " + scanner.getString(dateColumn)
+                               + " in record " + scanner.recordNumber() + " (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * @return The grid filled so far.
+     */
+    public ResampledSeries getSeries() {
+        return resampler.toSeries();
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * RollingSeries records the state of a RollingWindow after each reading: its time
+ * and the window's count, sum, min and max. It is a RollingWindow.Listener, so it
+ * can be handed straight to a RollingWindowMetric. Each column is a primitive
+ * array, as in ReadingSeries.
+ */
+public class RollingSeries implements RollingWindow.Listener {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private double[] sums = new double[INITIAL_CAPACITY];
+    private double[] mins = new double[INITIAL_CAPACITY];
+    private double[] maxes = new double[INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public void update(long time, RollingWindow window) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+            sums = Arrays.copyOf(sums, size * 2);
+            mins = Arrays.copyOf(mins, size * 2);
+            maxes = Arrays.copyOf(maxes, size * 2);
+        }
+        times[size] = time;
+        counts[size] = window.getCount();
+        sums[size] = window.getSum();
+        mins[size] = window.getMin();
+        maxes[size] = window.getMax();
+        size++;
+    }
+
+    /**
+     * @return The number of readings, one window per reading.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The 0-based position of the reading.
+     * @return The time the window ends at, in epoch seconds.
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    /**
+     * @param index The 0-based position of the reading.
+     * @return The number of readings in the window.
+     */
+    public int getCount(int index) {
+        checkIndex(index);
+        return counts[index];
+    }
+
+    /**
+     * @param index The 0-based position of the reading.
+     * @return The moving average.
+     */
+    public double getMean(int index) {
+        checkIndex(index);
+        return sums[index] / counts[index];
+    }
+
+    /**
+     * @param index The 0-based position of the reading.
+     * @return The rolling minimum.
+     */
+    public double getMin(int index) {
+        checkIndex(index);
+        return mins[index];
+    }
+
+    /**
+     * @param index The 0-based position of the reading.
+     * @return The rolling maximum.
+     */
+    public double getMax(int index) {
+        checkIndex(index);
+        return maxes[index];
+    }
+
+    /**
+     * @param index The 0-based position of the reading.
+     * @return The rolling sum.
+     */
+    public double getSum(int index) {
+        checkIndex(index);
+        return sums[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
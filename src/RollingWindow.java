@@ -0,0 +1,192 @@
+import java.time.Duration;
+
+/**
+ * RollingWindow keeps count, sum, mean, min and max of the readings of the last
+ * so-many hours, e.g. a 24h moving average or a 72h rolling minimum, updated in
+ * O(1) amortized time per reading instead of recomputing each window from scratch.
+ *
+ * Readings are added in time order. Each one enters a ring buffer of (time, value)
+ * pairs and evicts the readings that have fallen out of the window (those at or
+ * before time - length), adjusting the running sum. Min and max come from two
+ * monotonic deques over the same ring: the min deque holds the readings that are
+ * still the lowest of everything after them, so its front is the window minimum,
+ * and likewise for max. Each reading enters and leaves each deque at most once.
+ *
+ * The window carries over from one file to the next, so a chronologically ordered
+ * list of daily files gives windows that span midnight.
+ */
+public class RollingWindow {
+
+    /**
+     * Receives the window after each reading, e.g. to store a moving average or to
+     * raise a cold-snap alert when the rolling maximum stays below freezing.
+     */
+    public interface Listener {
+
+        /**
+         * @param time The time of the reading just added, in epoch seconds.
+         * @param window The window ending at that reading. Only valid during the call.
+         */
+        void update(long time, RollingWindow window);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long length;
+
+    // Ring buffer of the readings in the window, addressed by sequence number & mask
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int mask = INITIAL_CAPACITY - 1;
+    private long first;    // Sequence number of the oldest reading in the window
+    private long next;     // Sequence number the next reading gets
+    private double sum;
+
+    // Monotonic deques of sequence numbers, also rings addressed by & mask
+    private long[] minDeque = new long[INITIAL_CAPACITY];
+    private long minHead;
+    private long minTail;
+    private long[] maxDeque = new long[INITIAL_CAPACITY];
+    private long maxHead;
+    private long maxTail;
+
+    /**
+     * @param length The width of the window, e.g. Duration.ofHours(24).
+     */
+    public RollingWindow(Duration length) {
+        if (length.getSeconds() < 1) {
+            throw new IllegalArgumentException("Window must be at least one second long: " + length);
+        }
+        this.length = length.getSeconds();
+    }
+
+    /**
+     * Adds a reading and drops those that are now more than the window length older.
+     *
+     * @param time The time of the reading in epoch seconds; not before the previous reading.
+     * @param value The reading.
+     * @throws IllegalArgumentException if the reading is older than the previous one.
+     */
+    public void add(long time, double value) {
+        if (next > first && time < times[(int) ((next - 1) & mask)]) {
+            throw new IllegalArgumentException("Reading at " + WeatherTime.formatDateUtc(time)
+                                               + " is older than the previous one");
+        }
+        evictUntil(time - length);
+        if (next - first == times.length) {
+            grow();
+        }
+        int slot = (int) (next & mask);
+        times[slot] = time;
+        values[slot] = value;
+        sum += value;
+
+        while (minTail > minHead && values[(int) (minDeque[(int) ((minTail - 1) & mask)] & mask)] >= value) {
+            minTail--; // An older reading that is not lower can never be the minimum again
+        }
+        minDeque[(int) (minTail++ & mask)] = next;
+        while (maxTail > maxHead && values[(int) (maxDeque[(int) ((maxTail - 1) & mask)] & mask)] <= value) {
+            maxTail--;
+        }
+        maxDeque[(int) (maxTail++ & mask)] = next;
+        next++;
+    }
+
+    /**
+     * @return The number of readings in the window.
+     */
+    public int getCount() {
+        return (int) (next - first);
+    }
+
+    /**
+     * @return The sum of the readings in the window.
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return The average of the readings in the window, or Double.NaN if it is empty.
+     */
+    public double getMean() {
+        return next > first ? sum / (next - first) : Double.NaN;
+    }
+
+    /**
+     * @return The lowest reading in the window, or Double.NaN if it is empty.
+     */
+    public double getMin() {
+        return next > first ? values[(int) (minDeque[(int) (minHead & mask)] & mask)] : Double.NaN;
+    }
+
+    /**
+     * @return The highest reading in the window, or Double.NaN if it is empty.
+     */
+    public double getMax() {
+        return next > first ? values[(int) (maxDeque[(int) (maxHead & mask)] & mask)] : Double.NaN;
+    }
+
+    /**
+     * @return The time of the oldest reading in the window, or WeatherTime.UNKNOWN if it is empty.
+     */
+    public long getOldestTime() {
+        return next > first ? times[(int) (first & mask)] : WeatherTime.UNKNOWN;
+    }
+
+    /**
+     * @return The time of the latest reading, or WeatherTime.UNKNOWN if the window is empty.
+     */
+    public long getLatestTime() {
+        return next > first ? times[(int) ((next - 1) & mask)] : WeatherTime.UNKNOWN;
+    }
+
+    /**
+     * @return The width of the window.
+     */
+    public Duration getLength() {
+        return Duration.ofSeconds(length);
+    }
+
+    /** Drops the readings at or before a time. */
+    private void evictUntil(long cutoff) {
+        while (next > first && times[(int) (first & mask)] <= cutoff) {
+            sum -= values[(int) (first & mask)];
+            if (minDeque[(int) (minHead & mask)] == first) {
+                minHead++;
+            }
+            if (maxDeque[(int) (maxHead & mask)] == first) {
+                maxHead++;
+            }
+            first++;
+        }
+        if (next == first) {
+            sum = 0; // Don't let rounding errors from the subtractions carry over
+        }
+    }
+
+    /** Doubles the ring, keeping sequence numbers, so slots move to seq & newMask. */
+    private void grow() {
+        int capacity = times.length * 2;
+        int newMask = capacity - 1;
+        long[] newTimes = new long[capacity];
+        double[] newValues = new double[capacity];
+        for (long seq = first; seq < next; seq++) {
+            newTimes[(int) (seq & newMask)] = times[(int) (seq & mask)];
+            newValues[(int) (seq & newMask)] = values[(int) (seq & mask)];
+        }
+        minDeque = regrow(minDeque, minHead, minTail, newMask);
+        maxDeque = regrow(maxDeque, maxHead, maxTail, newMask);
+        times = newTimes;
+        values = newValues;
+        mask = newMask;
+    }
+
+    private long[] regrow(long[] deque, long head, long tail, int newMask) {
+        long[] grown = new long[newMask + 1];
+        for (long i = head; i < tail; i++) {
+            grown[(int) (i & newMask)] = deque[(int) (i & mask)];
+        }
+        return grown;
+    }
+}
@@ -0,0 +1,69 @@
+import java.time.Duration;
+
+/**
+ * RollingWindowMetric feeds the valid readings of a column, with their DateUTC,
+ * into a RollingWindow and hands the window to a listener after every reading.
+ * The window is kept across inputs, so inputs must be given in chronological
+ * order. Records with a missing reading or no valid DateUTC are skipped, and so
+ * are readings older than the one before them.
+ */
+public class RollingWindowMetric implements WeatherMetric {
+
+    private final String column;
+    private final String label;
+    private final RollingWindow window;
+    private final RollingWindow.Listener listener;
+
+    private int valueColumn;
+    private int dateColumn;
+
+    /**
+     * @param column The column to track, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param length The width of the window, e.g. Duration.ofHours(24).
+     * @param listener Receives the window after each reading.
+     */
+    public RollingWindowMetric(String column, String label, Duration length, RollingWindow.Listener listener) {
+        this.column = column;
+        this.label = label;
+        this.window = new RollingWindow(length);
+        this.listener = listener;
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        valueColumn = scanner.requireColumn(column);
+        dateColumn = scanner.requireColumn(WeatherSchema.DATE_UTC);
+        return new int[] {valueColumn, dateColumn};
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        if (scanner.isMissing(valueColumn)) {
+            return;
+        }
+        long time = scanner.getDateUtc(dateColumn);
+        if (time == WeatherTime.UNKNOWN) {
+            return;
+        }
+        double value = scanner.readingOrNaN(valueColumn, label);
+        if (Double.isNaN(value)) {
+            return;
+        }
+        try {
+            window.add(time, value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Warning: Skipping reading at " + scanner.getString(dateColumn)
+                               + " in record " + scanner.recordNumber() + " (" + e.getMessage() + ")");
+            return;
+        }
+        listener.update(time, window);
+    }
+
+    /**
+     * @return The window as of the last reading.
+     */
+    public RollingWindow getWindow() {
+        return window;
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * RunningMean accumulates a sum and a count so an average can be built up over
+ * several parts of a file (or several files) and combined afterwards.
+ */
+public class RunningMean implements PartialAggregate<RunningMean> {
+
+    private double sum;
+    private long count;
+
+    /**
+     * Adds one reading.
+     *
+     * @param value The reading.
+     */
+    public void add(double value) {
+        sum += value;
+        count++;
+    }
+
+    /**
+     * Combines this result with another one.
+     *
+     * @param other The other result.
+     * @return A new RunningMean holding both sums and counts.
+     */
+    @Override
+    public RunningMean merge(RunningMean other) {
+        RunningMean merged = new RunningMean();
+        merged.sum = sum + other.sum;
+        merged.count = count + other.count;
+        return merged;
+    }
+
+    /**
+     * @return The average of the readings, or Double.NaN if there are none.
+     */
+    public double mean() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    /**
+     * @return The sum of the readings.
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return The number of readings.
+     */
+    public long getCount() {
+        return count;
+    }
+}
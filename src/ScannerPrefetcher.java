@@ -0,0 +1,101 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ScannerPrefetcher opens the inputs of a multi-file analysis one after another,
+ * starting the decompression of upcoming compressed inputs (.gz files, ZIP
+ * archive entries) before they are needed.
+ *
+ * When input i is opened, inputs i+1 .. i+depth that are compressed start inflating
+ * on the shared decompression pool. The caller parses input i while the next ones
+ * inflate on other cores, so decompression overlaps with parsing. Uncompressed
+ * files are memory-mapped as usual and need no prefetching.
+ *
+ * Input i is always started before the ones after it, and the depth is kept
+ * below the pool size, so at least one pool thread is left for the input being
+ * parsed. On a single core nothing is prefetched.
+ */
+public class ScannerPrefetcher implements AutoCloseable {
+
+    /** Largest number of inputs inflated ahead of the one being parsed: one less than the pool size. */
+    public static final int MAX_DEPTH = CompressedInput.POOL_THREADS - 1;
+
+    /** Number of inputs inflated ahead of the one being parsed. */
+    public static final int DEFAULT_DEPTH = MAX_DEPTH;
+
+    private final List<? extends WeatherInput> inputs;
+    private final int depth;
+    private final Map<Integer, InputStream> started = new HashMap<>();
+    private int nextToStart;
+
+    /**
+     * @param inputs The inputs that will be opened, in order.
+     * @param depth How many inputs to inflate ahead of the current one, at most MAX_DEPTH.
+     */
+    public ScannerPrefetcher(List<? extends WeatherInput> inputs, int depth) {
+        this.inputs = inputs;
+        this.depth = Math.max(0, Math.min(depth, MAX_DEPTH));
+    }
+
+    /**
+     * @param inputs The inputs that will be opened, in order.
+     */
+    public ScannerPrefetcher(List<? extends WeatherInput> inputs) {
+        this(inputs, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Opens an input of the list and starts inflating the compressed inputs after it.
+     *
+     * @param index The position of the input in the list.
+     * @return A scanner over the input.
+     * @throws IOException if the input cannot be opened.
+     */
+    public WeatherScanner open(int index) throws IOException {
+        WeatherInput input = inputs.get(index);
+        InputStream prefetched = started.remove(index);
+        if (prefetched == null && input.isCompressed()) {
+            // Not prefetched (first input or opened out of order): still inflate off this thread,
+            // and start it before the inputs after it
+            prefetched = CompressedInput.readAhead(input.openStream(), input.size());
+        }
+        nextToStart = Math.max(nextToStart, index + 1);
+        while (nextToStart < inputs.size() && nextToStart <= index + depth) {
+            startInflating(nextToStart++);
+        }
+        if (prefetched != null) {
+            return new WeatherScanner(prefetched, input.name(), CompressedInput.bufferSize(input.size()));
+        }
+        return input.open();
+    }
+
+    /**
+     * Stops and releases any inputs that were prefetched but never opened.
+     */
+    @Override
+    public void close() {
+        for (InputStream stream : started.values()) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // Unused prefetch; nothing to report
+            }
+        }
+        started.clear();
+    }
+
+    private void startInflating(int index) {
+        WeatherInput input = inputs.get(index);
+        if (!input.isCompressed()) {
+            return;
+        }
+        try {
+            started.put(index, CompressedInput.readAhead(input.openStream(), input.size()));
+        } catch (IOException e) {
+            // Leave it for open(), which reports the error in context
+        }
+    }
+}
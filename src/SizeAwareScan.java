@@ -0,0 +1,312 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+
+/**
+ * SizeAwareScan scans a list of inputs of very different sizes on a ForkJoinPool,
+ * planning the work from the input sizes instead of giving each input its own task.
+ *
+ * The plan cuts the total number of bytes into units of about the same size:
+ * plain files larger than a unit are split into newline-aligned byte ranges, as
+ * ParallelWeatherScan does for one file, and runs of small files are batched into a
+ * single unit, so a year of 5 KB daily files does not become 365 tiny tasks. Inputs
+ * whose size is unknown or that cannot be split (compressed ones) get a unit of
+ * their own. Units are then run as a ForkJoin task tree, so idle workers steal
+ * from busy ones, and the time to finish is about the total bytes divided by the
+ * workers rather than the size of the largest file.
+ *
+ * Results are PartialAggregates, one per input or per range, merged in data order;
+ * the result for the last range of each input is marked with endInput(). Inputs that
+ * fail to read are reported in list order after the scan and left out entirely. With
+ * a CancellationToken, units not yet started when it is cancelled are skipped, and
+ * inputs with a skipped range are left out as well.
+ */
+public final class SizeAwareScan {
+
+    /** Units per worker; several, so stealing can even out the slower ones. */
+    private static final int UNITS_PER_WORKER = 4;
+
+    /** Smallest unit planned; below this, task overhead starts to show. */
+    static final long MIN_UNIT_BYTES = 1024 * 1024;
+
+    /** Largest unit planned, so no single task dominates. */
+    static final long MAX_UNIT_BYTES = ParallelWeatherScan.DEFAULT_CHUNK_SIZE;
+
+    private SizeAwareScan() {
+    }
+
+    /**
+     * Scans inputs with units sized for the pool and merges the results.
+     *
+     * @param inputs The inputs to scan.
+     * @param pool The pool that runs the units.
+     * @param scanPart Scans an input or a byte range of one, given the input's position.
+     * @return The merged result, or null if no input could be read.
+     */
+    public static <R extends PartialAggregate<R>> R scan(List<? extends WeatherInput> inputs, ForkJoinPool pool,
+                                                         BiFunction<Integer, WeatherScanner, R> scanPart) {
+        List<R> readable = new ArrayList<>();
+        for (R result : scanEach(inputs, pool, scanPart)) {
+            if (result != null) {
+                readable.add(result);
+            }
+        }
+        return readable.isEmpty() ? null : PartialAggregate.reduce(readable);
+    }
+
+    /**
+     * Scans inputs with units sized for the pool, returning one result per input.
+     *
+     * @param inputs The inputs to scan.
+     * @param pool The pool that runs the units.
+     * @param scanPart Scans an input or a byte range of one, given the input's position.
+     * @return The results in input order, with the ranges of split inputs merged;
+     * null for inputs that could not be read.
+     */
+    public static <R extends PartialAggregate<R>> List<R> scanEach(List<? extends WeatherInput> inputs,
+                                                                  ForkJoinPool pool,
+                                                                  BiFunction<Integer, WeatherScanner, R> scanPart) {
+        return scanEach(inputs, pool, unitBytes(inputs, pool.getParallelism()), scanPart);
+    }
+
+    /**
+     * Scans inputs with a given unit size, returning one result per input.
+     *
+     * @param inputs The inputs to scan.
+     * @param pool The pool that runs the units.
+     * @param unitBytes The number of bytes to aim for per unit.
+     * @param scanPart Scans an input or a byte range of one, given the input's position.
+     * @return The results in input order, with the ranges of split inputs merged;
+     * null for inputs that could not be read.
+     */
+    public static <R extends PartialAggregate<R>> List<R> scanEach(List<? extends WeatherInput> inputs,
+                                                                  ForkJoinPool pool, long unitBytes,
+                                                                  BiFunction<Integer, WeatherScanner, R> scanPart) {
+        return scanEach(inputs, pool, unitBytes, null, scanPart).getValue();
+    }
+
+    /**
+     * Scans inputs with units sized for the pool until the token is cancelled, and
+     * merges the results of the inputs scanned.
+     *
+     * @param inputs The inputs to scan.
+     * @param pool The pool that runs the units.
+     * @param token Checked before each unit and each input of a batch.
+     * @param scanPart Scans an input or a byte range of one, given the input's position.
+     * @return The merged result (null if no input was read) and how many inputs it covers.
+     */
+    public static <R extends PartialAggregate<R>> PartialResult<R> scan(List<? extends WeatherInput> inputs,
+                                                                        ForkJoinPool pool, CancellationToken token,
+                                                                        BiFunction<Integer, WeatherScanner, R> scanPart) {
+        PartialResult<List<R>> each = scanEach(inputs, pool, token, scanPart);
+        List<R> readable = new ArrayList<>(each.getValue());
+        readable.removeIf(result -> result == null);
+        return new PartialResult<>(readable.isEmpty() ? null : PartialAggregate.reduce(readable),
+                                   each.getInputCount(), each.getInputsSkipped(), each.getReason());
+    }
+
+    /**
+     * Scans inputs with units sized for the pool until the token is cancelled,
+     * returning one result per input.
+     *
+     * @param inputs The inputs to scan.
+     * @param pool The pool that runs the units.
+     * @param token Checked before each unit and each input of a batch.
+     * @param scanPart Scans an input or a byte range of one, given the input's position.
+     * @return The results in input order, null for inputs that could not be read or
+     * were not finished when the token was cancelled, and how many inputs were scanned.
+     */
+    public static <R extends PartialAggregate<R>> PartialResult<List<R>> scanEach(
+            List<? extends WeatherInput> inputs, ForkJoinPool pool, CancellationToken token,
+            BiFunction<Integer, WeatherScanner, R> scanPart) {
+        return scanEach(inputs, pool, unitBytes(inputs, pool.getParallelism()), token, scanPart);
+    }
+
+    /** Scans the units of the plan, skipping those that start after the token, if any, is cancelled. */
+    private static <R extends PartialAggregate<R>> PartialResult<List<R>> scanEach(
+            List<? extends WeatherInput> inputs, ForkJoinPool pool, long unitBytes, CancellationToken token,
+            BiFunction<Integer, WeatherScanner, R> scanPart) {
+        if (unitBytes <= 0) {
+            throw new IllegalArgumentException("Unit size must be positive: " + unitBytes);
+        }
+        List<Unit> units = plan(inputs, unitBytes);
+        List<List<R>> unitResults = new ArrayList<>(units.size());
+        String[] errors = new String[inputs.size()];
+        boolean[] skipped = new boolean[inputs.size()];
+        for (int i = 0; i < units.size(); i++) {
+            unitResults.add(null);
+        }
+        if (!units.isEmpty()) {
+            pool.invoke(new UnitTask<>(inputs, units, 0, units.size(), token, scanPart, unitResults, errors, skipped));
+        }
+
+        // Gather the parts of each input; a split input has several, in byte order
+        List<List<R>> parts = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            parts.add(new ArrayList<>(1));
+        }
+        for (int i = 0; i < units.size(); i++) {
+            Unit unit = units.get(i);
+            List<R> results = unitResults.get(i);
+            for (int j = 0; j < results.size(); j++) {
+                parts.get(unit.firstInput + j).add(results.get(j));
+            }
+        }
+        List<R> perInput = new ArrayList<>(inputs.size());
+        int inputsSkipped = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            if (skipped[i]) {
+                inputsSkipped++;
+                perInput.add(null); // Not finished; its scanned ranges, if any, are dropped
+            } else if (errors[i] != null) {
+                System.err.println("Error reading file: " + inputs.get(i).name() + " (" + errors[i] + ")");
+                perInput.add(null); // Left out entirely, even if some of its ranges were read
+            } else {
+                perInput.add(PartialAggregate.reduce(parts.get(i)));
+            }
+        }
+        return new PartialResult<>(perInput, inputs.size(), inputsSkipped,
+                                   token != null ? token.getReason() : null);
+    }
+
+    /**
+     * Chooses a unit size: the total bytes spread over a few units per worker,
+     * kept between MIN_UNIT_BYTES and MAX_UNIT_BYTES.
+     */
+    static long unitBytes(List<? extends WeatherInput> inputs, int workers) {
+        long total = 0;
+        for (WeatherInput input : inputs) {
+            total += Math.max(0, input.size());
+        }
+        long perUnit = total / Math.max(1, (long) workers * UNITS_PER_WORKER);
+        return Math.min(MAX_UNIT_BYTES, Math.max(MIN_UNIT_BYTES, perUnit));
+    }
+
+    /** Cuts the inputs into units of about unitBytes each, in input order. */
+    static List<Unit> plan(List<? extends WeatherInput> inputs, long unitBytes) {
+        List<Unit> units = new ArrayList<>();
+        int batchStart = -1;
+        long batchBytes = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            WeatherInput input = inputs.get(i);
+            long size = input.size();
+            boolean small = size >= 0 && size < unitBytes;
+            if (small && batchStart >= 0 && batchBytes + size <= unitBytes) {
+                batchBytes += size;
+                continue; // Joins the current batch
+            }
+            if (batchStart >= 0) {
+                units.add(new Unit(batchStart, i, -1, -1));
+                batchStart = -1;
+            }
+            if (small) {
+                batchStart = i;
+                batchBytes = size;
+            } else if (size > unitBytes && input.isSplittable()) {
+                long chunks = (size + unitBytes - 1) / unitBytes;
+                long chunkSize = (size + chunks - 1) / chunks; // Even chunks, no runt at the end
+                for (long start = 0; start < size; start += chunkSize) {
+                    units.add(new Unit(i, i + 1, start, Math.min(size, start + chunkSize)));
+                }
+            } else {
+                units.add(new Unit(i, i + 1, -1, -1));
+            }
+        }
+        if (batchStart >= 0) {
+            units.add(new Unit(batchStart, inputs.size(), -1, -1));
+        }
+        return units;
+    }
+
+    /** A batch of whole inputs [firstInput, lastInput), or one byte range of a single input. */
+    static final class Unit {
+        final int firstInput;
+        final int lastInput;
+        final long rangeStart; // -1 for whole inputs
+        final long rangeEnd;
+
+        Unit(int firstInput, int lastInput, long rangeStart, long rangeEnd) {
+            this.firstInput = firstInput;
+            this.lastInput = lastInput;
+            this.rangeStart = rangeStart;
+            this.rangeEnd = rangeEnd;
+        }
+
+        boolean isRange() {
+            return rangeStart >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return isRange() ? "Unit [input " + firstInput + ", bytes " + rangeStart + "-" + rangeEnd + "]"
+                             : "Unit [inputs " + firstInput + "-" + (lastInput - 1) + "]";
+        }
+    }
+
+    /** Runs units [first, last) by splitting the interval in half until one unit is left. */
+    private static class UnitTask<R extends PartialAggregate<R>> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends WeatherInput> inputs;
+        private final List<Unit> units;
+        private final int first;
+        private final int last;
+        private final CancellationToken token;
+        private final BiFunction<Integer, WeatherScanner, R> scanPart;
+        private final List<List<R>> unitResults;
+        private final String[] errors;
+        private final boolean[] skipped;
+
+        UnitTask(List<? extends WeatherInput> inputs, List<Unit> units, int first, int last, CancellationToken token,
+                 BiFunction<Integer, WeatherScanner, R> scanPart, List<List<R>> unitResults, String[] errors,
+                 boolean[] skipped) {
+            this.inputs = inputs;
+            this.units = units;
+            this.first = first;
+            this.last = last;
+            this.token = token;
+            this.scanPart = scanPart;
+            this.unitResults = unitResults;
+            this.errors = errors;
+            this.skipped = skipped;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new UnitTask<>(inputs, units, first, middle, token, scanPart, unitResults, errors, skipped),
+                          new UnitTask<>(inputs, units, middle, last, token, scanPart, unitResults, errors, skipped));
+                return;
+            }
+            Unit unit = units.get(first);
+            List<R> results = new ArrayList<>(unit.lastInput - unit.firstInput);
+            for (int i = unit.firstInput; i < unit.lastInput; i++) {
+                WeatherInput input = inputs.get(i);
+                if (token != null && token.isCancelled()) {
+                    skipped[i] = true; // Ranges of one input may all set it; only ever to true
+                    results.add(null);
+                    continue;
+                }
+                try (WeatherScanner scanner = unit.isRange() ? input.openRange(unit.rangeStart, unit.rangeEnd)
+                                                             : input.open()) {
+                    R result = scanPart.apply(i, scanner);
+                    boolean lastPart = !unit.isRange() || unit.rangeEnd >= input.size();
+                    results.add(result != null && lastPart ? result.endInput() : result);
+                } catch (IOException | UncheckedIOException e) {
+                    synchronized (errors) {
+                        if (errors[i] == null) {
+                            errors[i] = e.getMessage(); // The first failing range of an input is reported
+                        }
+                    }
+                    results.add(null);
+                }
+            }
+            unitResults.set(first, results); // Each task writes only its own slot
+        }
+    }
+}
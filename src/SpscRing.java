@@ -0,0 +1,71 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SpscRing is a bounded queue between exactly one producer thread and one consumer
+ * thread, with no locks: each side owns one counter and only reads the other's.
+ * offer and poll never block; a WeatherPipeline stage that finds the ring full or
+ * empty spins briefly and then parks, and counts that time as waiting.
+ *
+ * Each side caches the other side's last seen counter, so in steady state a call
+ * touches only its own counter and the slot.
+ *
+ * @param <T> The element type.
+ */
+final class SpscRing<T> {
+
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Next slot to read; written by the consumer only
+    private final AtomicLong tail = new AtomicLong(); // Next slot to write; written by the producer only
+    private long cachedHead; // Producer's view of head
+    private long cachedTail; // Consumer's view of tail
+
+    /**
+     * @param capacity The number of elements the ring holds, rounded up to a power of two.
+     */
+    SpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an element if there is room. Producer thread only.
+     *
+     * @param element The element, not null.
+     * @return false if the ring is full.
+     */
+    boolean offer(T element) {
+        long t = tail.get();
+        if (t - cachedHead == slots.length) {
+            cachedHead = head.get();
+            if (t - cachedHead == slots.length) {
+                return false;
+            }
+        }
+        slots[(int) (t & mask)] = element;
+        tail.lazySet(t + 1); // Publishes the slot write to the consumer
+        return true;
+    }
+
+    /**
+     * Removes the oldest element, if any. Consumer thread only.
+     *
+     * @return The element, or null if the ring is empty.
+     */
+    T poll() {
+        long h = head.get();
+        if (h == cachedTail) {
+            cachedTail = tail.get();
+            if (h == cachedTail) {
+                return null;
+            }
+        }
+        int slot = (int) (h & mask);
+        @SuppressWarnings("unchecked") // Only offer() stores into slots
+        T element = (T) slots[slot];
+        slots[slot] = null;
+        head.lazySet(h + 1); // Frees the slot for the producer
+        return element;
+    }
+}
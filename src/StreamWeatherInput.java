@@ -0,0 +1,62 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * StreamWeatherInput is weather CSV text arriving on a stream, such as System.in,
+ * a pipe or a socket, so it can be analyzed without landing on disk first. The
+ * scanner reads it in one pass through a fixed-size buffer.
+ *
+ * A stream can be read only once: the first open consumes it and later ones fail.
+ * Analyses that revisit records (materializing top-k readings, listing the coldest
+ * file's temperatures as written) check isReopenable() or report the failure.
+ */
+final class StreamWeatherInput implements WeatherInput {
+
+    private final InputStream in;
+    private final String name;
+    private boolean opened;
+
+    StreamWeatherInput(InputStream in, String name) {
+        this.in = in;
+        this.name = name;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public WeatherScanner open() throws IOException {
+        return WeatherScanner.open(openStream(), name);
+    }
+
+    @Override
+    public synchronized InputStream openStream() throws IOException {
+        if (opened) {
+            throw new IOException("Stream can only be read once");
+        }
+        opened = true;
+        return in;
+    }
+
+    @Override
+    public boolean isReopenable() {
+        return false;
+    }
+
+    @Override
+    public boolean isCompressed() {
+        return false; // Chain a decompressor in front of the stream instead
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,69 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * SwarDelimiterFinder is the portable DelimiterFinder. It reads 8 bytes at a time
+ * into a long and finds matching bytes with carry-free bit arithmetic ("SIMD within
+ * a register"), so it needs no special JVM support.
+ */
+public class SwarDelimiterFinder implements DelimiterFinder {
+
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long ONES = 0x0101010101010101L;
+
+    @Override
+    public long mask(ByteBuffer buffer, int from, int to, byte a, byte b) {
+        int end = Math.min(to, from + BLOCK_SIZE);
+        long patternA = ONES * (a & 0xFF);
+        long patternB = ONES * (b & 0xFF);
+        long mask = 0;
+        int i = from;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            long word = readWord(buffer, i);
+            long matches = matchBytes(word, patternA) | matchBytes(word, patternB);
+            // Gather the high bit of each byte into the low 8 bits, byte 0 first
+            long bits = ((matches >>> 7) * 0x0102040810204080L) >>> 56;
+            mask |= bits << (i - from);
+        }
+        for (; i < end; i++) {
+            byte current = buffer.get(i);
+            if (current == a || current == b) {
+                mask |= 1L << (i - from);
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public int indexOf(ByteBuffer buffer, int from, int to, byte a, byte b) {
+        long patternA = ONES * (a & 0xFF);
+        long patternB = ONES * (b & 0xFF);
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = readWord(buffer, i);
+            long matches = matchBytes(word, patternA) | matchBytes(word, patternB);
+            if (matches != 0) {
+                return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            byte current = buffer.get(i);
+            if (current == a || current == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /** Reads 8 bytes so that the byte at index i ends up in the low bits. */
+    private static long readWord(ByteBuffer buffer, int i) {
+        long word = buffer.getLong(i);
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.reverseBytes(word);
+    }
+
+    /** Returns 0x80 in every byte of word equal to the matching byte of pattern, 0 elsewhere. */
+    private static long matchBytes(long word, long pattern) {
+        long diff = word ^ pattern;
+        return ~(((diff & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | diff | LOW_SEVEN_BITS);
+    }
+}
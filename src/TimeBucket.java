@@ -0,0 +1,112 @@
+/**
+ * TimeBucket is the width of a time group in a grouped query: an hour, a day,
+ * a calendar month or a calendar year, all in UTC. A bucket is identified by
+ * the epoch second it starts at.
+ */
+public enum TimeBucket {
+    HOUR,
+    DAY,
+    MONTH,
+    YEAR;
+
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final long SECONDS_PER_DAY = 86400;
+
+    /**
+     * @param epochSecond A time in seconds since the epoch, e.g. from WeatherTime.parseDateUtc.
+     * @return The start of the bucket holding that time, in epoch seconds.
+     */
+    public long start(long epochSecond) {
+        switch (this) {
+            case HOUR:
+                return Math.floorDiv(epochSecond, SECONDS_PER_HOUR) * SECONDS_PER_HOUR;
+            case DAY:
+                return Math.floorDiv(epochSecond, SECONDS_PER_DAY) * SECONDS_PER_DAY;
+            default:
+                long day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+                int[] date = civilDate(day);
+                int month = this == MONTH ? date[1] : 1;
+                return WeatherTime.epochDay(date[0], month, 1) * SECONDS_PER_DAY;
+        }
+    }
+
+    /**
+     * @param bucketStart The start of a bucket, as returned by start().
+     * @return The start of the following bucket.
+     */
+    public long next(long bucketStart) {
+        switch (this) {
+            case HOUR:
+                return bucketStart + SECONDS_PER_HOUR;
+            case DAY:
+                return bucketStart + SECONDS_PER_DAY;
+            default:
+                int[] date = civilDate(Math.floorDiv(bucketStart, SECONDS_PER_DAY));
+                int year = date[0];
+                int month = date[1];
+                if (this == YEAR || month == 12) {
+                    year++;
+                    month = 1;
+                } else {
+                    month++;
+                }
+                return WeatherTime.epochDay(year, month, 1) * SECONDS_PER_DAY;
+        }
+    }
+
+    /**
+     * Numbers the buckets consecutively, so per-bucket values can live in arrays:
+     * bucket n+1 always follows bucket n.
+     *
+     * @param epochSecond A time in seconds since the epoch.
+     * @return The number of the bucket holding that time.
+     */
+    public long ordinal(long epochSecond) {
+        switch (this) {
+            case HOUR:
+                return Math.floorDiv(epochSecond, SECONDS_PER_HOUR);
+            case DAY:
+                return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+            default:
+                int[] date = civilDate(Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+                return this == MONTH ? date[0] * 12L + (date[1] - 1) : date[0];
+        }
+    }
+
+    /**
+     * @param ordinal A bucket number, as returned by ordinal().
+     * @return The start of that bucket in epoch seconds.
+     */
+    public long startOf(long ordinal) {
+        switch (this) {
+            case HOUR:
+                return ordinal * SECONDS_PER_HOUR;
+            case DAY:
+                return ordinal * SECONDS_PER_DAY;
+            case MONTH:
+                return WeatherTime.epochDay((int) Math.floorDiv(ordinal, 12), Math.floorMod(ordinal, 12) + 1, 1)
+                       * SECONDS_PER_DAY;
+            default:
+                return WeatherTime.epochDay((int) ordinal, 1, 1) * SECONDS_PER_DAY;
+        }
+    }
+
+    /**
+     * Converts a day number back to a date; the inverse of WeatherTime.epochDay.
+     *
+     * @param epochDay Days since 1970-01-01.
+     * @return {year, month, day}.
+     */
+    static int[] civilDate(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153; // Month counted from March
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return new int[] {year, month, day};
+    }
+}
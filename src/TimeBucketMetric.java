@@ -0,0 +1,60 @@
+/**
+ * TimeBucketMetric groups the valid readings of a column by a time bucket of
+ * DateUTC (hour, day, month or year) and keeps count, sum, min and max per bucket
+ * in a BucketStats. Records with a missing reading or no valid DateUTC are skipped.
+ */
+public class TimeBucketMetric implements WeatherMetric {
+
+    private final String column;
+    private final String label;
+    private final BucketStats stats;
+
+    private int valueColumn;
+    private int dateColumn;
+
+    /**
+     * @param column The column to aggregate, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param bucket The bucket width.
+     */
+    public TimeBucketMetric(String column, String label, TimeBucket bucket) {
+        this.column = column;
+        this.label = label;
+        this.stats = new BucketStats(bucket);
+    }
+
+    @Override
+    public int[] begin(int inputIndex, WeatherScanner scanner) {
+        valueColumn = scanner.requireColumn(column);
+        dateColumn = scanner.requireColumn(WeatherSchema.DATE_UTC);
+        return new int[] {valueColumn, dateColumn};
+    }
+
+    @Override
+    public void accept(WeatherScanner scanner) {
+        if (scanner.isMissing(valueColumn)) {
+            return;
+        }
+        long time = scanner.getDateUtc(dateColumn);
+        if (time == WeatherTime.UNKNOWN) {
+            return;
+        }
+        double value = scanner.readingOrNaN(valueColumn, label);
+        if (Double.isNaN(value)) {
+            return;
+        }
+        try {
+            stats.add(time, value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Warning: Skipping reading at " + scanner.getString(dateColumn)
+                               + " in record " + scanner.recordNumber() + " (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * @return The per-bucket statistics gathered so far.
+     */
+    public BucketStats getStats() {
+        return stats;
+    }
+}
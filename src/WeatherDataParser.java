@@ -1,8 +1,11 @@
 import edu.duke.*;           // Imports FileResource, DirectoryResource and other Duke library classes
 import org.apache.commons.csv.*; // Imports CSVParser and CSVRecord
 import java.io.*;               // Imports File class for handling files
+import java.time.Duration;      // Width of rolling windows
 import java.util.ArrayList;     // To store selected files
 import java.util.List;          // Interface for List
+import java.util.concurrent.ForkJoinPool; // Runs the parallel single-file scans
+import java.util.function.BiFunction; // Scans one input of a parallel analysis
 
 /**
  * WeatherDataParser processes CSV weather data to find specific information.
@@ -16,9 +19,21 @@ import java.util.List;          // Interface for List
  * 7. Finding the record with the absolute coldest temperature among multiple selected files. // <-- Added
  *
  * File selection is done once in main, and methods reuse this selection.
+ * Each per-file analysis has two forms: one over a CSVParser, and a faster one
+ * over a WeatherScanner, which memory-maps the file (or reads a stream such as
+ * stdin in one pass) and reads fields as bytes.
+ * The multi-file and test methods use the WeatherScanner form. Files ending in
+ * .gz are decompressed on the fly, and the multi-file methods inflate the next
+ * few compressed files in the background while the current one is parsed.
+ * The multi-file methods also come in a WeatherInput form, which reads the
+ * entries of a ZIP archive (ZipWeatherArchive) the same way.
+ * main computes all of its results in one MultiMetricScan, reading each file once.
  */
 public class WeatherDataParser {
 
+    /** Humidity threshold used by the high-humidity average test. */
+    private static final int HIGH_HUMIDITY_THRESHOLD = 80; // As specified in the example
+
     // === Core Logic Methods ===
 
     /**
@@ -30,20 +45,18 @@ public class WeatherDataParser {
      * or null if no valid records are found.
      */
     public CSVRecord coldestHourInFile(CSVParser parser) {
+        int tempIndex = headerIndex(parser, WeatherSchema.TEMPERATURE); // Resolved once, not per row
         CSVRecord coldestRecord = null;
+        double lowestTemp = 0.0; // Kept alongside the record so it is not re-parsed per row
         for (CSVRecord currentRecord : parser) {
-            String tempString = currentRecord.get("TemperatureF");
+            String tempString = currentRecord.get(tempIndex);
             // Ignore bogus temperature values
             if (!tempString.equals("-9999")) {
                 try {
                     double currentTemp = Double.parseDouble(tempString);
-                    if (coldestRecord == null) {
+                    if (coldestRecord == null || currentTemp < lowestTemp) {
                         coldestRecord = currentRecord;
-                    } else {
-                        double lowestTemp = Double.parseDouble(coldestRecord.get("TemperatureF"));
-                        if (currentTemp < lowestTemp) {
-                            coldestRecord = currentRecord;
-                        }
+                        lowestTemp = currentTemp;
                     }
                 } catch (NumberFormatException e) {
                     System.err.println("Warning: Could not parse temperature value: "
@@ -63,22 +76,20 @@ public class WeatherDataParser {
      * or null if no valid humidity readings are found.
      */
     public CSVRecord lowestHumidityInFile(CSVParser parser) {
+        int humidityIndex = headerIndex(parser, WeatherSchema.HUMIDITY); // Resolved once, not per row
         CSVRecord lowestHumidityRecord = null;
+        double lowestHumidity = 0.0; // Kept alongside the record so it is not re-parsed per row
         for (CSVRecord currentRecord : parser) {
-            String humidityString = currentRecord.get("Humidity");
+            String humidityString = currentRecord.get(humidityIndex);
             if (humidityString.equals("N/A")) {
                 continue; // Skip "N/A" values
             }
             try {
                 double currentHumidity = Double.parseDouble(humidityString);
-                if (lowestHumidityRecord == null) {
+                // Find lower humidity, return first record in case of tie (< comparison)
+                if (lowestHumidityRecord == null || currentHumidity < lowestHumidity) {
                     lowestHumidityRecord = currentRecord;
-                } else {
-                    double lowestHumidity = Double.parseDouble(lowestHumidityRecord.get("Humidity"));
-                    // Find lower humidity, return first record in case of tie (< comparison)
-                    if (currentHumidity < lowestHumidity) {
-                        lowestHumidityRecord = currentRecord;
-                    }
+                    lowestHumidity = currentHumidity;
                 }
             } catch (NumberFormatException e) {
                 System.err.println("Warning: Could not parse humidity value: "
@@ -89,143 +100,155 @@ public class WeatherDataParser {
     }
 
     /**
-     * Finds the File object representing the file with the coldest temperature
-     * among a list of files.
+     * Finds the file with the coldest temperature among a list of files.
      *
      * @param selectedFiles A list of File objects to analyze.
-     * @return The File object corresponding to the file with the overall coldest temperature,
-     * or null if the list is empty or no valid temperatures are found.
+     * @return A summary of the file with the overall coldest temperature (its name,
+     * position in the list, coldest record and time), or null if the list is empty
+     * or no valid temperatures are found.
      */
-    public File fileWithColdestTemperature(List<File> selectedFiles) {
-        File coldestFile = null;
-        CSVRecord coldestRecordOverall = null; // Internal variable to track lowest record
+    public FileSummary fileWithColdestTemperature(List<File> selectedFiles) {
+        return fileWithColdestTemperature(selectedFiles, false);
+    }
 
+    /**
+     * Finds the file with the coldest temperature among a list of files, optionally
+     * keeping all of that file's valid temperatures so they can be reported without
+     * reading the file again.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param withSeries Whether the summary should include the file's (time, temperature) readings and listing.
+     * @return A summary of the file with the overall coldest temperature,
+     * or null if the list is empty or no valid temperatures are found.
+     */
+    public FileSummary fileWithColdestTemperature(List<File> selectedFiles, boolean withSeries) {
         if (selectedFiles == null || selectedFiles.isEmpty()) {
             return null; // No files to process
         }
+        return inputWithColdestTemperature(WeatherInput.ofFiles(selectedFiles), withSeries);
+    }
 
-        for (File f : selectedFiles) {
-            FileResource fr = new FileResource(f);
-            CSVParser parser = fr.getCSVParser();
-            CSVRecord currentColdest = coldestHourInFile(parser); // Use existing method
-
-            if (currentColdest != null) {
-                // Initialize if this is the first valid record found
-                if (coldestRecordOverall == null) {
-                    coldestRecordOverall = currentColdest;
-                    coldestFile = f;
-                } else {
-                    // Compare with the current overall coldest
-                    try {
-                         double currentTemp = Double.parseDouble(currentColdest.get("TemperatureF"));
-                         double overallLowestTemp = Double.parseDouble(coldestRecordOverall.get("TemperatureF"));
-
-                        if (currentTemp < overallLowestTemp) {
-                            coldestRecordOverall = currentColdest; // Update record tracking
-                            coldestFile = f;                     // Update file tracking
-                        }
-                    } catch (NumberFormatException e) {
-                         // This shouldn't happen if coldestHourInFile worked, but good practice
-                         System.err.println("Error comparing temperatures from file: " + f.getName());
-                    }
-                }
-            } else {
-                System.out.println("Note: No valid temperature data found in file: " + f.getName());
-            }
+    /**
+     * Same as fileWithColdestTemperature, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param withSeries Whether the summary should include the input's (time, temperature) readings and listing.
+     * @return A summary of the input with the overall coldest temperature,
+     * or null if the list is empty or no valid temperatures are found.
+     */
+    public FileSummary inputWithColdestTemperature(List<? extends WeatherInput> inputs, boolean withSeries) {
+        if (inputs == null || inputs.isEmpty()) {
+            return null; // No inputs to process
+        }
+        MultiMetricScan scan = new MultiMetricScan();
+        ColdestFileMetric coldest = scan.add(new ColdestFileMetric(withSeries));
+        scan.scan(inputs);
+        noteEmptyInputs("temperature", coldest.getEmptyInputs());
+        return coldest.getColdest();
+    }
+
+    /**
+     * Prints a note for each input that had no valid reading of a column.
+     *
+     * @param label How the column is called, e.g. "humidity".
+     * @param names The names of those inputs.
+     */
+    private static void noteEmptyInputs(String label, List<String> names) {
+        for (String name : names) {
+            System.out.println("Note: No valid " + label + " data found in file: " + name);
         }
-        return coldestFile; // Returns the FILE, not the record
     }
 
     /**
-     * Finds the CSVRecord with the absolute coldest temperature across multiple files.
+     * Finds the record with the absolute coldest temperature across multiple files.
      *
      * @param selectedFiles A list of File objects to analyze.
-     * @return The CSVRecord with the overall coldest temperature,
+     * @return The WeatherRecord with the overall coldest temperature,
      * or null if the list is empty or no valid temperature is found.
      */
-    public CSVRecord coldestHourInManyFiles(List<File> selectedFiles) {
-        CSVRecord coldestRecordOverall = null;
-
+    public WeatherRecord coldestHourInManyFiles(List<File> selectedFiles) {
         if (selectedFiles == null || selectedFiles.isEmpty()) {
             return null; // No files to process
         }
+        return coldestHourInManyInputs(WeatherInput.ofFiles(selectedFiles));
+    }
 
-        for (File f : selectedFiles) {
-            FileResource fr = new FileResource(f);
-            CSVParser parser = fr.getCSVParser();
-            // Find the coldest record in the current file
-            CSVRecord currentColdest = coldestHourInFile(parser);
-
-            if (currentColdest != null) {
-                // Initialize if this is the first valid record found
-                if (coldestRecordOverall == null) {
-                    coldestRecordOverall = currentColdest;
-                } else {
-                    // Compare with the current overall coldest
-                    try {
-                        double currentTemp = Double.parseDouble(currentColdest.get("TemperatureF"));
-                        double overallLowestTemp = Double.parseDouble(coldestRecordOverall.get("TemperatureF"));
-
-                        if (currentTemp < overallLowestTemp) {
-                            coldestRecordOverall = currentColdest; // Update record tracking
-                        }
-                    } catch (NumberFormatException e) {
-                        // This shouldn't happen if coldestHourInFile worked
-                        System.err.println("Error comparing temperature from file: " + f.getName());
-                    }
+    /**
+     * Same as coldestHourInManyFiles, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @return The WeatherRecord with the overall coldest temperature,
+     * or null if the list is empty or no valid temperature is found.
+     */
+    public WeatherRecord coldestHourInManyInputs(List<? extends WeatherInput> inputs) {
+        if (inputs == null || inputs.isEmpty()) {
+            return null; // No inputs to process
+        }
+
+        List<MinReading> perInput = new ArrayList<>();
+        try (ScannerPrefetcher prefetcher = new ScannerPrefetcher(inputs)) {
+            for (int i = 0; i < inputs.size(); i++) {
+                // Find the coldest reading in the current input; its value travels with the record
+                try (WeatherScanner scanner = prefetcher.open(i)) {
+                    perInput.add(lowestReading(scanner, WeatherSchema.TEMPERATURE, "temperature").endInput());
+                } catch (IOException | UncheckedIOException e) {
+                    System.err.println("Error reading file: " + inputs.get(i).name() + " (" + e.getMessage() + ")");
                 }
             }
-            // No need for an else here, just means this file had no valid data
         }
-        return coldestRecordOverall; // Returns the actual record
+        // Merged in input order, so the first record wins a tie
+        return perInput.isEmpty() ? null : PartialAggregate.reduce(perInput).getRecord();
     }
 
 
     /**
-     * Finds the CSVRecord with the lowest humidity across multiple files.
+     * Finds the WeatherRecord with the lowest humidity across multiple files.
      * If there is a tie, returns the first such record encountered.
      *
      * @param selectedFiles A list of File objects to analyze.
-     * @return The CSVRecord with the overall lowest humidity,
+     * @return The WeatherRecord with the overall lowest humidity,
      * or null if the list is empty or no valid humidity is found.
      */
-    public CSVRecord lowestHumidityInManyFiles(List<File> selectedFiles) {
-        CSVRecord lowestHumidityRecordOverall = null;
-
+    public WeatherRecord lowestHumidityInManyFiles(List<File> selectedFiles) {
         if (selectedFiles == null || selectedFiles.isEmpty()) {
             return null; // No files to process
         }
+        return lowestHumidityInManyInputs(WeatherInput.ofFiles(selectedFiles));
+    }
 
-        for (File f : selectedFiles) {
-            FileResource fr = new FileResource(f);
-            CSVParser parser = fr.getCSVParser();
-            // Find the lowest humidity record in the current file
-            CSVRecord currentLowestHumidityRecord = lowestHumidityInFile(parser);
-
-            if (currentLowestHumidityRecord != null) {
-                // Initialize if this is the first valid record found
-                if (lowestHumidityRecordOverall == null) {
-                    lowestHumidityRecordOverall = currentLowestHumidityRecord;
-                } else {
-                    // Compare with the current overall lowest humidity
-                    try {
-                        double currentHumidity = Double.parseDouble(currentLowestHumidityRecord.get("Humidity"));
-                        double overallLowestHumidity = Double.parseDouble(lowestHumidityRecordOverall.get("Humidity"));
-
-                        // Note: < comparison ensures the first record wins in a tie
-                        if (currentHumidity < overallLowestHumidity) {
-                            lowestHumidityRecordOverall = currentLowestHumidityRecord;
-                        }
-                    } catch (NumberFormatException e) {
-                        // This shouldn't happen if lowestHumidityInFile worked
-                        System.err.println("Error comparing humidity from file: " + f.getName());
-                    }
+    /**
+     * Same as lowestHumidityInManyFiles, for inputs such as the entries of a ZIP archive.
+     * If there is a tie, returns the first such record encountered.
+     *
+     * @param inputs The inputs to analyze.
+     * @return The WeatherRecord with the overall lowest humidity,
+     * or null if the list is empty or no valid humidity is found.
+     */
+    public WeatherRecord lowestHumidityInManyInputs(List<? extends WeatherInput> inputs) {
+        if (inputs == null || inputs.isEmpty()) {
+            return null; // No inputs to process
+        }
+
+        List<MinReading> perInput = new ArrayList<>();
+        try (ScannerPrefetcher prefetcher = new ScannerPrefetcher(inputs)) {
+            for (int i = 0; i < inputs.size(); i++) {
+                WeatherInput input = inputs.get(i);
+                // Find the lowest humidity reading in the current input
+                MinReading lowest;
+                try (WeatherScanner scanner = prefetcher.open(i)) {
+                    lowest = lowestReading(scanner, WeatherSchema.HUMIDITY, "humidity").endInput();
+                } catch (IOException | UncheckedIOException e) {
+                    System.err.println("Error reading file: " + input.name() + " (" + e.getMessage() + ")");
+                    continue;
                 }
-            } else {
-                 System.out.println("Note: No valid humidity data found in file: " + f.getName());
+                if (lowest.isEmpty()) {
+                     System.out.println("Note: No valid humidity data found in file: " + input.name());
+                }
+                perInput.add(lowest);
             }
         }
-        return lowestHumidityRecordOverall;
+        // Note: merging in input order ensures the first record wins in a tie
+        return perInput.isEmpty() ? null : PartialAggregate.reduce(perInput).getRecord();
     }
 
     /**
@@ -237,10 +260,11 @@ public class WeatherDataParser {
      * temperature readings are found.
      */
     public double averageTemperatureInFile(CSVParser parser) {
+        int tempIndex = headerIndex(parser, WeatherSchema.TEMPERATURE);
         double sum = 0.0;
         int count = 0;
         for (CSVRecord record : parser) {
-            String tempString = record.get("TemperatureF");
+            String tempString = record.get(tempIndex);
             if (!tempString.equals("-9999")) {
                 try {
                     double temp = Double.parseDouble(tempString);
@@ -270,11 +294,13 @@ public class WeatherDataParser {
      * or Double.NaN if no such records are found.
      */
     public double averageTemperatureWithHighHumidityInFile(CSVParser parser, int value) {
+        int humidityIndex = headerIndex(parser, WeatherSchema.HUMIDITY);
+        int tempIndex = headerIndex(parser, WeatherSchema.TEMPERATURE);
         double sum = 0.0;
         int count = 0;
         for (CSVRecord record : parser) {
-            String humidityString = record.get("Humidity");
-            String tempString = record.get("TemperatureF");
+            String humidityString = record.get(humidityIndex);
+            String tempString = record.get(tempIndex);
 
             if (humidityString.equals("N/A") || tempString.equals("-9999")) {
                 continue; // Skip invalid readings
@@ -306,9 +332,918 @@ public class WeatherDataParser {
         }
     }
 
+    /**
+     * Looks up a column index in the parser's header once, so record loops can
+     * use CSVRecord.get(int) instead of a name lookup per row.
+     *
+     * @param parser The CSVParser whose header to search.
+     * @param columnName The column name.
+     * @return The 0-based column index.
+     * @throws IllegalArgumentException if the header has no such column.
+     */
+    private static int headerIndex(CSVParser parser, String columnName) {
+        Integer index = parser.getHeaderMap().get(columnName);
+        if (index == null) {
+            throw new IllegalArgumentException("Mapping for " + columnName + " not found, expected one of "
+                                               + parser.getHeaderMap().keySet());
+        }
+        return index;
+    }
+
+
+    // === Scanner-Based Methods ===
+    // Same analyses as above, reading fields as bytes from a memory-mapped file.
+    // Each method projects the scanner onto the columns it reads, so the other
+    // fields of every row are skipped without being tokenized. Missing readings are
+    // whatever the scanner's MissingValues says ("-9999" and "N/A" by default),
+    // recognized from the raw bytes.
+
+    /**
+     * Finds the record with the coldest temperature using a WeatherScanner.
+     * Ignores records where the temperature is -9999. Returns the first record in case of a tie.
+     *
+     * @param scanner The WeatherScanner positioned before the first record of the file.
+     * @return The WeatherRecord corresponding to the coldest valid temperature,
+     * or null if no valid records are found.
+     */
+    public WeatherRecord coldestHourInFile(WeatherScanner scanner) {
+        return lowestReading(scanner, WeatherSchema.TEMPERATURE, "temperature").getRecord();
+    }
+
+    /**
+     * Finds the record with the lowest humidity using a WeatherScanner.
+     * Skips records where the humidity is "N/A". Returns the first record in case of a tie.
+     *
+     * @param scanner The WeatherScanner positioned before the first record of the file.
+     * @return The WeatherRecord corresponding to the lowest valid humidity,
+     * or null if no valid humidity readings are found.
+     */
+    public WeatherRecord lowestHumidityInFile(WeatherScanner scanner) {
+        return lowestReading(scanner, WeatherSchema.HUMIDITY, "humidity").getRecord();
+    }
+
+    /**
+     * Calculates the average temperature from valid readings using a WeatherScanner.
+     * Ignores temperatures of -9999.
+     *
+     * @param scanner The WeatherScanner positioned before the first record of the file.
+     * @return The average temperature as a double, or Double.NaN if no valid
+     * temperature readings are found.
+     */
+    public double averageTemperatureInFile(WeatherScanner scanner) {
+        return temperatureMean(scanner).mean();
+    }
+
+    /**
+     * Finds the lowest valid reading of a column. Returns the first record in case of a tie.
+     *
+     * @param scanner The WeatherScanner positioned before the first record to examine.
+     * @param column The column to minimize.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @return The lowest reading, its record and the number of records scanned.
+     */
+    private MinReading lowestReading(WeatherScanner scanner, String column, String label) {
+        int valueColumn = scanner.requireColumn(column);
+        scanner.project(valueColumn);
+        MinReading lowest = new MinReading();
+        while (scanner.next()) {
+            // Bogus values are skipped without decoding them
+            double reading = scanner.readingOrNaN(valueColumn, label);
+            if (!Double.isNaN(reading)) {
+                // Only a new winner is materialized; < keeps the first record in a tie
+                lowest.offer(reading, scanner);
+            }
+        }
+        lowest.addRecords(scanner.recordNumber());
+        return lowest;
+    }
+
+    /**
+     * Sums the valid temperature readings.
+     *
+     * @param scanner The WeatherScanner positioned before the first record to examine.
+     * @return The sum and count of valid temperatures.
+     */
+    private RunningMean temperatureMean(WeatherScanner scanner) {
+        int tempColumn = scanner.requireColumn(WeatherSchema.TEMPERATURE);
+        scanner.project(tempColumn);
+        RunningMean mean = new RunningMean();
+        while (scanner.next()) {
+            double temp = scanner.readingOrNaN(tempColumn, "temperature");
+            if (!Double.isNaN(temp)) {
+                mean.add(temp);
+            }
+        }
+        return mean;
+    }
+
+    /**
+     * Calculates the average temperature for records where humidity is greater than
+     * or equal to a specified value, using a WeatherScanner.
+     * Ignores temperatures of -9999 and humidity values of "N/A".
+     *
+     * @param scanner The WeatherScanner positioned before the first record of the file.
+     * @param value The minimum humidity threshold (inclusive).
+     * @return The average temperature as a double for the matching records,
+     * or Double.NaN if no such records are found.
+     */
+    public double averageTemperatureWithHighHumidityInFile(WeatherScanner scanner, int value) {
+        return meanTemperatureWithHumidityAtLeast(value).run(scanner).getValue();
+    }
+
+    /**
+     * @param value The minimum humidity threshold (inclusive).
+     * @return One instance of the general query: mean temperature where humidity >= value.
+     */
+    private static WeatherQuery meanTemperatureWithHumidityAtLeast(int value) {
+        return WeatherQuery.select(WeatherQuery.Aggregate.MEAN, WeatherSchema.TEMPERATURE)
+                           .where(WeatherSchema.HUMIDITY, WeatherQuery.Comparison.AT_LEAST, value);
+    }
+
+
+    // === Parallel Single-File Methods ===
+    // Split one large file into newline-aligned byte ranges and scan them on a
+    // ForkJoinPool. Results are merged in file order, so ties still go to the
+    // earliest record, exactly as in the sequential methods.
+
+    /**
+     * Finds the record with the coldest temperature in one file, scanning parts of
+     * the file in parallel. Returns the first record in case of a tie.
+     *
+     * @param file The file to analyze.
+     * @param pool The pool that runs the scans.
+     * @return The WeatherRecord with the coldest valid temperature, or null if none is found.
+     * @throws IOException if the file cannot be read.
+     */
+    public WeatherRecord coldestHourInFile(File file, ForkJoinPool pool) throws IOException {
+        return ParallelWeatherScan.scan(file, pool,
+                chunk -> lowestReading(chunk, WeatherSchema.TEMPERATURE, "temperature"),
+                MinReading::merge).getRecord();
+    }
+
+    /**
+     * Finds the record with the lowest humidity in one file, scanning parts of
+     * the file in parallel. Returns the first record in case of a tie.
+     *
+     * @param file The file to analyze.
+     * @param pool The pool that runs the scans.
+     * @return The WeatherRecord with the lowest valid humidity, or null if none is found.
+     * @throws IOException if the file cannot be read.
+     */
+    public WeatherRecord lowestHumidityInFile(File file, ForkJoinPool pool) throws IOException {
+        return ParallelWeatherScan.scan(file, pool,
+                chunk -> lowestReading(chunk, WeatherSchema.HUMIDITY, "humidity"),
+                MinReading::merge).getRecord();
+    }
+
+    /**
+     * Calculates the average temperature of one file, scanning parts of the file in parallel.
+     *
+     * @param file The file to analyze.
+     * @param pool The pool that runs the scans.
+     * @return The average temperature, or Double.NaN if no valid temperature is found.
+     * @throws IOException if the file cannot be read.
+     */
+    public double averageTemperatureInFile(File file, ForkJoinPool pool) throws IOException {
+        return ParallelWeatherScan.scan(file, pool, this::temperatureMean, RunningMean::merge).mean();
+    }
+
+
+    // === Parallel Multi-File Methods ===
+    // Scan the files of a list concurrently on a ForkJoinPool and combine the results
+    // in list order, so ties still go to the earliest file and record, exactly as in
+    // the sequential methods. The record searches plan their work from file sizes
+    // (SizeAwareScan): large files are split into ranges and small ones batched, so
+    // one multi-year file does not leave the other workers idle.
+
+    /**
+     * Finds the file with the coldest temperature, scanning the files in parallel.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param withSeries Whether the summary should include the file's (time, temperature) readings and listing.
+     * @param pool The pool that runs the scans.
+     * @return A summary of the file with the overall coldest temperature,
+     * or null if the list is empty or no valid temperatures are found.
+     */
+    public FileSummary fileWithColdestTemperature(List<File> selectedFiles, boolean withSeries, ForkJoinPool pool) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return null; // No files to process
+        }
+        return inputWithColdestTemperature(WeatherInput.ofFiles(selectedFiles), withSeries, pool);
+    }
+
+    /**
+     * Same as fileWithColdestTemperature with a pool, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param withSeries Whether the summary should include the input's (time, temperature) readings and listing.
+     * @param pool The pool that runs the scans.
+     * @return A summary of the input with the overall coldest temperature,
+     * or null if the list is empty or no valid temperatures are found.
+     */
+    public FileSummary inputWithColdestTemperature(List<? extends WeatherInput> inputs, boolean withSeries,
+                                                   ForkJoinPool pool) {
+        if (inputs == null || inputs.isEmpty()) {
+            return null; // No inputs to process
+        }
+        return coldestOf(ParallelInputScan.scanEach(inputs, pool, coldestSummary(withSeries)));
+    }
+
+    /**
+     * @param withSeries Whether the summary should include the input's (time, temperature) readings and listing.
+     * @return Scans one input into the summary of its coldest temperature.
+     */
+    private BiFunction<Integer, WeatherScanner, FileSummary> coldestSummary(boolean withSeries) {
+        return (index, scanner) -> {
+            MultiMetricScan scan = new MultiMetricScan();
+            ColdestFileMetric coldest = scan.add(new ColdestFileMetric(withSeries));
+            scan.scan(index, scanner);
+            noteEmptyInputs("temperature", coldest.getEmptyInputs());
+            return coldest.getColdest();
+        };
+    }
+
+    /**
+     * @param perInput One summary per input, in list order; null for inputs without one.
+     * @return The summary with the coldest temperature, or null if there is none.
+     */
+    private FileSummary coldestOf(List<FileSummary> perInput) {
+        FileSummary coldestOverall = null;
+        for (FileSummary summary : perInput) {
+            // < keeps the earlier file in a tie
+            if (summary != null && (coldestOverall == null || summary.getMinimum() < coldestOverall.getMinimum())) {
+                coldestOverall = summary;
+            }
+        }
+        return coldestOverall;
+    }
+
+    /**
+     * Finds the record with the coldest temperature across multiple files, scanning
+     * the files in parallel. If there is a tie, returns the first such record.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param pool The pool that runs the scans.
+     * @return The WeatherRecord with the overall coldest temperature,
+     * or null if the list is empty or no valid temperature is found.
+     */
+    public WeatherRecord coldestHourInManyFiles(List<File> selectedFiles, ForkJoinPool pool) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return null; // No files to process
+        }
+        return coldestHourInManyInputs(WeatherInput.ofFiles(selectedFiles), pool);
+    }
+
+    /**
+     * Same as coldestHourInManyFiles with a pool, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param pool The pool that runs the scans.
+     * @return The WeatherRecord with the overall coldest temperature,
+     * or null if the list is empty or no valid temperature is found.
+     */
+    public WeatherRecord coldestHourInManyInputs(List<? extends WeatherInput> inputs, ForkJoinPool pool) {
+        if (inputs == null || inputs.isEmpty()) {
+            return null; // No inputs to process
+        }
+        MinReading coldest = SizeAwareScan.scan(inputs, pool,
+                (index, scanner) -> lowestReading(scanner, WeatherSchema.TEMPERATURE, "temperature"));
+        return coldest == null ? null : coldest.getRecord();
+    }
+
+    /**
+     * Finds the record with the lowest humidity across multiple files, scanning the
+     * files in parallel. If there is a tie, returns the first such record.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param pool The pool that runs the scans.
+     * @return The WeatherRecord with the overall lowest humidity,
+     * or null if the list is empty or no valid humidity is found.
+     */
+    public WeatherRecord lowestHumidityInManyFiles(List<File> selectedFiles, ForkJoinPool pool) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return null; // No files to process
+        }
+        return lowestHumidityInManyInputs(WeatherInput.ofFiles(selectedFiles), pool);
+    }
+
+    /**
+     * Same as lowestHumidityInManyFiles with a pool, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param pool The pool that runs the scans.
+     * @return The WeatherRecord with the overall lowest humidity,
+     * or null if the list is empty or no valid humidity is found.
+     */
+    public WeatherRecord lowestHumidityInManyInputs(List<? extends WeatherInput> inputs, ForkJoinPool pool) {
+        if (inputs == null || inputs.isEmpty()) {
+            return null; // No inputs to process
+        }
+        return lowestOfEach(inputs, SizeAwareScan.scanEach(inputs, pool,
+                (index, scanner) -> lowestReading(scanner, WeatherSchema.HUMIDITY, "humidity")));
+    }
+
+    /**
+     * Merges per-input lowest humidity readings in input order, noting inputs without any.
+     *
+     * @param inputs The scanned inputs.
+     * @param perInput One result per input, each covering the whole input; null for
+     * inputs that could not be read.
+     * @return The overall lowest record, or null if there is none.
+     */
+    private WeatherRecord lowestOfEach(List<? extends WeatherInput> inputs, List<MinReading> perInput) {
+        List<MinReading> readable = new ArrayList<>();
+        for (int i = 0; i < perInput.size(); i++) {
+            MinReading lowest = perInput.get(i);
+            if (lowest == null) {
+                continue; // Already reported as a read error
+            }
+            if (lowest.isEmpty()) {
+                System.out.println("Note: No valid humidity data found in file: " + inputs.get(i).name());
+            }
+            readable.add(lowest.endInput()); // No-op for results already marked
+        }
+        return readable.isEmpty() ? null : PartialAggregate.reduce(readable).getRecord();
+    }
+
+
+    // === Cancellable Methods ===
+    // The parallel multi-file analyses, stoppable through a CancellationToken: a
+    // cancelled token or an expired deadline is noticed between units of work, the
+    // units not yet started are skipped, and the answer for the inputs finished so
+    // far comes back as a PartialResult that says how complete it is.
+
+    /**
+     * Finds the file with the coldest temperature, scanning the files in parallel
+     * until the token is cancelled. Files are checked between, not within.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param withSeries Whether the summary should include the file's (time, temperature) readings and listing.
+     * @param pool The pool that runs the scans.
+     * @param token Stops the analysis when cancelled.
+     * @return A summary of the file with the coldest temperature among those scanned
+     * (null if none is found), and how many files were scanned.
+     */
+    public PartialResult<FileSummary> fileWithColdestTemperature(List<File> selectedFiles, boolean withSeries,
+                                                                 ForkJoinPool pool, CancellationToken token) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return PartialResult.complete(null, 0); // No files to process
+        }
+        return inputWithColdestTemperature(WeatherInput.ofFiles(selectedFiles), withSeries, pool, token);
+    }
+
+    /**
+     * Same as fileWithColdestTemperature with a token, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param withSeries Whether the summary should include the input's (time, temperature) readings and listing.
+     * @param pool The pool that runs the scans.
+     * @param token Stops the analysis when cancelled.
+     * @return A summary of the input with the coldest temperature among those scanned
+     * (null if none is found), and how many inputs were scanned.
+     */
+    public PartialResult<FileSummary> inputWithColdestTemperature(List<? extends WeatherInput> inputs,
+                                                                  boolean withSeries, ForkJoinPool pool,
+                                                                  CancellationToken token) {
+        if (inputs == null || inputs.isEmpty()) {
+            return PartialResult.complete(null, 0); // No inputs to process
+        }
+        return ParallelInputScan.scanEach(inputs, pool, token, coldestSummary(withSeries)).map(this::coldestOf);
+    }
+
+    /**
+     * Finds the record with the coldest temperature across multiple files, scanning
+     * the files in parallel until the token is cancelled. Large files are checked
+     * between their ranges, small ones between files.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param pool The pool that runs the scans.
+     * @param token Stops the analysis when cancelled.
+     * @return The WeatherRecord with the coldest temperature in the files scanned
+     * (null if none is found), and how many files were scanned.
+     */
+    public PartialResult<WeatherRecord> coldestHourInManyFiles(List<File> selectedFiles, ForkJoinPool pool,
+                                                               CancellationToken token) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return PartialResult.complete(null, 0); // No files to process
+        }
+        return coldestHourInManyInputs(WeatherInput.ofFiles(selectedFiles), pool, token);
+    }
+
+    /**
+     * Same as coldestHourInManyFiles with a token, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param pool The pool that runs the scans.
+     * @param token Stops the analysis when cancelled.
+     * @return The WeatherRecord with the coldest temperature in the inputs scanned
+     * (null if none is found), and how many inputs were scanned.
+     */
+    public PartialResult<WeatherRecord> coldestHourInManyInputs(List<? extends WeatherInput> inputs,
+                                                                ForkJoinPool pool, CancellationToken token) {
+        if (inputs == null || inputs.isEmpty()) {
+            return PartialResult.complete(null, 0); // No inputs to process
+        }
+        return SizeAwareScan.scan(inputs, pool, token,
+                (index, scanner) -> lowestReading(scanner, WeatherSchema.TEMPERATURE, "temperature"))
+                .map(MinReading::getRecord);
+    }
+
+    /**
+     * Finds the record with the lowest humidity across multiple files, scanning the
+     * files in parallel until the token is cancelled.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param pool The pool that runs the scans.
+     * @param token Stops the analysis when cancelled.
+     * @return The WeatherRecord with the lowest humidity in the files scanned
+     * (null if none is found), and how many files were scanned.
+     */
+    public PartialResult<WeatherRecord> lowestHumidityInManyFiles(List<File> selectedFiles, ForkJoinPool pool,
+                                                                  CancellationToken token) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return PartialResult.complete(null, 0); // No files to process
+        }
+        return lowestHumidityInManyInputs(WeatherInput.ofFiles(selectedFiles), pool, token);
+    }
+
+    /**
+     * Same as lowestHumidityInManyFiles with a token, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param pool The pool that runs the scans.
+     * @param token Stops the analysis when cancelled.
+     * @return The WeatherRecord with the lowest humidity in the inputs scanned
+     * (null if none is found), and how many inputs were scanned.
+     */
+    public PartialResult<WeatherRecord> lowestHumidityInManyInputs(List<? extends WeatherInput> inputs,
+                                                                   ForkJoinPool pool, CancellationToken token) {
+        if (inputs == null || inputs.isEmpty()) {
+            return PartialResult.complete(null, 0); // No inputs to process
+        }
+        return SizeAwareScan.scanEach(inputs, pool, token,
+                (index, scanner) -> lowestReading(scanner, WeatherSchema.HUMIDITY, "humidity"))
+                .map(perInput -> lowestOfEach(inputs, perInput));
+    }
+
+    /**
+     * Calculates the average temperature across multiple files, scanning the files
+     * in parallel until the token is cancelled.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param pool The pool that runs the scans.
+     * @param token Stops the analysis when cancelled.
+     * @return The average temperature of the files scanned (Double.NaN if no valid
+     * temperature is found), and how many files were scanned.
+     */
+    public PartialResult<Double> averageTemperatureInManyFiles(List<File> selectedFiles, ForkJoinPool pool,
+                                                               CancellationToken token) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return PartialResult.complete(Double.NaN, 0); // No files to process
+        }
+        return averageTemperatureInManyInputs(WeatherInput.ofFiles(selectedFiles), pool, token);
+    }
+
+    /**
+     * Same as averageTemperatureInManyFiles with a token, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param pool The pool that runs the scans.
+     * @param token Stops the analysis when cancelled.
+     * @return The average temperature of the inputs scanned (Double.NaN if no valid
+     * temperature is found), and how many inputs were scanned.
+     */
+    public PartialResult<Double> averageTemperatureInManyInputs(List<? extends WeatherInput> inputs,
+                                                                ForkJoinPool pool, CancellationToken token) {
+        if (inputs == null || inputs.isEmpty()) {
+            return PartialResult.complete(Double.NaN, 0); // No inputs to process
+        }
+        PartialResult<RunningMean> sum = SizeAwareScan.scan(inputs, pool, token,
+                (index, scanner) -> temperatureMean(scanner));
+        return new PartialResult<>(sum.getValue() == null ? Double.NaN : sum.getValue().mean(),
+                                   sum.getInputCount(), sum.getInputsSkipped(), sum.getReason());
+    }
+
+
+    // === Scheduled I/O Methods ===
+    // For thousands of small daily files: an IoScheduler reads files on I/O threads
+    // (virtual threads where available) and parses the bytes on a fixed CPU pool.
+
+    /**
+     * Finds the record with the coldest temperature across multiple files, reading
+     * them through an I/O scheduler. If there is a tie, returns the first such record.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param scheduler The scheduler that reads and parses the files.
+     * @return The WeatherRecord with the overall coldest temperature,
+     * or null if the list is empty or no valid temperature is found.
+     */
+    public WeatherRecord coldestHourInManyFiles(List<File> selectedFiles, IoScheduler scheduler) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return null; // No files to process
+        }
+        return coldestHourInManyInputs(WeatherInput.ofFiles(selectedFiles), scheduler);
+    }
+
+    /**
+     * Same as coldestHourInManyFiles with a scheduler, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param scheduler The scheduler that reads and parses the inputs.
+     * @return The WeatherRecord with the overall coldest temperature,
+     * or null if the list is empty or no valid temperature is found.
+     */
+    public WeatherRecord coldestHourInManyInputs(List<? extends WeatherInput> inputs, IoScheduler scheduler) {
+        if (inputs == null || inputs.isEmpty()) {
+            return null; // No inputs to process
+        }
+        MinReading coldest = scheduler.scan(inputs,
+                (index, scanner) -> lowestReading(scanner, WeatherSchema.TEMPERATURE, "temperature"));
+        return coldest == null ? null : coldest.getRecord();
+    }
+
+    /**
+     * Finds the record with the lowest humidity across multiple files, reading them
+     * through an I/O scheduler. If there is a tie, returns the first such record.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param scheduler The scheduler that reads and parses the files.
+     * @return The WeatherRecord with the overall lowest humidity,
+     * or null if the list is empty or no valid humidity is found.
+     */
+    public WeatherRecord lowestHumidityInManyFiles(List<File> selectedFiles, IoScheduler scheduler) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return null; // No files to process
+        }
+        return lowestHumidityInManyInputs(WeatherInput.ofFiles(selectedFiles), scheduler);
+    }
+
+    /**
+     * Same as lowestHumidityInManyFiles with a scheduler, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param scheduler The scheduler that reads and parses the inputs.
+     * @return The WeatherRecord with the overall lowest humidity,
+     * or null if the list is empty or no valid humidity is found.
+     */
+    public WeatherRecord lowestHumidityInManyInputs(List<? extends WeatherInput> inputs, IoScheduler scheduler) {
+        if (inputs == null || inputs.isEmpty()) {
+            return null; // No inputs to process
+        }
+        return lowestOfEach(inputs, scheduler.scanEach(inputs,
+                (index, scanner) -> lowestReading(scanner, WeatherSchema.HUMIDITY, "humidity")));
+    }
+
+
+    // === Pipelined Methods ===
+    // Read, parse and aggregate on separate threads connected by lock-free rings
+    // (see WeatherPipeline); pipeline.getStageStats() then shows the limiting stage.
+
+    /**
+     * Calculates the average temperature across many files with a staged pipeline.
+     * Ignores temperatures of -9999.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param pipeline The pipeline to run, e.g. new WeatherPipeline(3).
+     * @return The average temperature, or Double.NaN if no valid temperature readings are found.
+     */
+    public double averageTemperatureInManyFiles(List<File> selectedFiles, WeatherPipeline pipeline) {
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return Double.NaN; // No files to process
+        }
+        return averageTemperatureInManyInputs(WeatherInput.ofFiles(selectedFiles), pipeline);
+    }
+
+    /**
+     * Same as averageTemperatureInManyFiles, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param pipeline The pipeline to run, e.g. new WeatherPipeline(3).
+     * @return The average temperature, or Double.NaN if no valid temperature readings are found.
+     */
+    public double averageTemperatureInManyInputs(List<? extends WeatherInput> inputs, WeatherPipeline pipeline) {
+        if (inputs == null || inputs.isEmpty()) {
+            return Double.NaN; // No inputs to process
+        }
+        RunningMean mean = new RunningMean();
+        pipeline.run(inputs, WeatherSchema.TEMPERATURE, "temperature", false, (times, values, count) -> {
+            for (int i = 0; i < count; i++) {
+                mean.add(values[i]);
+            }
+        });
+        return mean.mean();
+    }
+
+
+    // === Group-By-Time Methods ===
+    // Aggregate a column per hour, day, month or year of DateUTC over any number
+    // of files in a single streaming pass.
+
+    /**
+     * Computes count, sum, mean, min and max of a column per time bucket across many files.
+     * Missing readings and records without a valid DateUTC are skipped.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param column The column to aggregate, e.g. WeatherSchema.TEMPERATURE.
+     * @param bucket The bucket width, e.g. TimeBucket.MONTH.
+     * @return The per-bucket statistics, from the earliest to the latest bucket.
+     */
+    public BucketStats statsByTime(List<File> selectedFiles, String column, TimeBucket bucket) {
+        return statsByTimeInInputs(WeatherInput.ofFiles(selectedFiles), column, bucket);
+    }
+
+    /**
+     * Same as statsByTime, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param column The column to aggregate, e.g. WeatherSchema.TEMPERATURE.
+     * @param bucket The bucket width, e.g. TimeBucket.MONTH.
+     * @return The per-bucket statistics, from the earliest to the latest bucket.
+     */
+    public BucketStats statsByTimeInInputs(List<? extends WeatherInput> inputs, String column, TimeBucket bucket) {
+        MultiMetricScan scan = new MultiMetricScan();
+        TimeBucketMetric metric = scan.add(new TimeBucketMetric(column, WeatherSchema.labelOf(column), bucket));
+        scan.scan(inputs);
+        return metric.getStats();
+    }
+
+
+    // === Rolling-Window Methods ===
+    // Moving averages and rolling min/max over a time window (e.g. 24h or 72h),
+    // carried across file boundaries; files must be listed in chronological order.
+
+    /**
+     * Computes the rolling count, mean, min and max of a column at every valid reading
+     * across many files, over the readings of the preceding window (e.g. 24 hours).
+     *
+     * @param selectedFiles A list of File objects to analyze, in chronological order.
+     * @param column The column to track, e.g. WeatherSchema.TEMPERATURE.
+     * @param window The width of the window, e.g. Duration.ofHours(24).
+     * @return One window per valid reading, in time order.
+     */
+    public RollingSeries rollingStats(List<File> selectedFiles, String column, Duration window) {
+        return rollingStatsInInputs(WeatherInput.ofFiles(selectedFiles), column, window);
+    }
+
+    /**
+     * Same as rollingStats, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze, in chronological order.
+     * @param column The column to track, e.g. WeatherSchema.TEMPERATURE.
+     * @param window The width of the window, e.g. Duration.ofHours(24).
+     * @return One window per valid reading, in time order.
+     */
+    public RollingSeries rollingStatsInInputs(List<? extends WeatherInput> inputs, String column, Duration window) {
+        RollingSeries series = new RollingSeries();
+        MultiMetricScan scan = new MultiMetricScan();
+        scan.add(new RollingWindowMetric(column, WeatherSchema.labelOf(column), window, series));
+        scan.scan(inputs);
+        return series;
+    }
+
+
+    // === Resampling Methods ===
+    // Put a station's irregular readings on a uniform grid (e.g. every 30 minutes),
+    // so averages are not biased toward densely sampled periods and series of
+    // different stations line up index for index.
+
+    /**
+     * Resamples a column of many files onto a uniform time grid.
+     *
+     * @param selectedFiles The files of one station, in chronological order.
+     * @param column The column to resample, e.g. WeatherSchema.TEMPERATURE.
+     * @param step The spacing of the grid, e.g. Duration.ofMinutes(30).
+     * @param interpolation How grid points between readings get their value.
+     * @param maxGap The longest stretch without readings that is still filled in.
+     * @return The grid from the first to the last valid reading; NaN where not filled.
+     */
+    public ResampledSeries resample(List<File> selectedFiles, String column, Duration step,
+                                    Resampler.Interpolation interpolation, Duration maxGap) {
+        return resampleInputs(WeatherInput.ofFiles(selectedFiles), column, step, interpolation, maxGap);
+    }
+
+    /**
+     * Same as resample, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs of one station, in chronological order.
+     * @param column The column to resample, e.g. WeatherSchema.TEMPERATURE.
+     * @param step The spacing of the grid, e.g. Duration.ofMinutes(30).
+     * @param interpolation How grid points between readings get their value.
+     * @param maxGap The longest stretch without readings that is still filled in.
+     * @return The grid from the first to the last valid reading; NaN where not filled.
+     */
+    public ResampledSeries resampleInputs(List<? extends WeatherInput> inputs, String column, Duration step,
+                                          Resampler.Interpolation interpolation, Duration maxGap) {
+        MultiMetricScan scan = new MultiMetricScan();
+        ResamplerMetric metric = scan.add(new ResamplerMetric(column, WeatherSchema.labelOf(column),
+                                                              new Resampler(step, interpolation, maxGap)));
+        scan.scan(inputs);
+        return metric.getSeries();
+    }
+
+
+    // === Quantile Methods ===
+    // Estimate medians and percentiles with mergeable KllSketches (see KllSketch for
+    // the error bounds). Per-input sketches can be serialized and merged later
+    // without rescanning, e.g. per-file sketches into a station-year.
+
+    /**
+     * Sketches the distribution of a column across many files.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param column The column to sketch, e.g. WeatherSchema.TEMPERATURE.
+     * @return A sketch of all valid readings; quantile(0.5) is the estimated median.
+     */
+    public KllSketch quantileSketch(List<File> selectedFiles, String column) {
+        return quantileSketchInInputs(WeatherInput.ofFiles(selectedFiles), column);
+    }
+
+    /**
+     * Same as quantileSketch, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param column The column to sketch, e.g. WeatherSchema.TEMPERATURE.
+     * @return A sketch of all valid readings.
+     */
+    public KllSketch quantileSketchInInputs(List<? extends WeatherInput> inputs, String column) {
+        MultiMetricScan scan = new MultiMetricScan();
+        QuantileMetric metric = scan.add(new QuantileMetric(column, WeatherSchema.labelOf(column)));
+        scan.scan(inputs);
+        return metric.getSketch();
+    }
+
+    /**
+     * Sketches a column separately for each input, in a single pass over all of them.
+     * Merging the returned sketches gives the same accuracy as sketching all inputs at once.
+     *
+     * @param inputs The inputs to analyze.
+     * @param column The column to sketch, e.g. WeatherSchema.TEMPERATURE.
+     * @return One sketch per input, in input order; empty for inputs without valid readings.
+     */
+    public List<KllSketch> quantileSketchPerInput(List<? extends WeatherInput> inputs, String column) {
+        MultiMetricScan scan = new MultiMetricScan();
+        List<QuantileMetric> metrics = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            metrics.add(scan.add(new QuantileMetric(column, WeatherSchema.labelOf(column), i, KllSketch.DEFAULT_K)));
+        }
+        scan.scan(inputs);
+        List<KllSketch> sketches = new ArrayList<>();
+        for (QuantileMetric metric : metrics) {
+            sketches.add(metric.getSketch());
+        }
+        return sketches;
+    }
+
+
+    // === Top-K Methods ===
+    // Rank the k lowest readings across many files with a bounded heap of primitives;
+    // only the k winning records are decoded, after the scan. The pool overloads merge
+    // the heaps of parts scanned in parallel.
+
+    /**
+     * Finds the k coldest hours across multiple files. Ties keep the records seen first.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param k The number of hours to return, e.g. 100.
+     * @return Up to k readings from coldest to warmest; empty if no valid temperature is found.
+     */
+    public List<RankedReading> coldestHoursInManyFiles(List<File> selectedFiles, int k) {
+        return coldestHoursInManyInputs(WeatherInput.ofFiles(selectedFiles), k);
+    }
+
+    /**
+     * Same as coldestHoursInManyFiles, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param k The number of hours to return, e.g. 100.
+     * @return Up to k readings from coldest to warmest; empty if no valid temperature is found.
+     */
+    public List<RankedReading> coldestHoursInManyInputs(List<? extends WeatherInput> inputs, int k) {
+        return lowestReadingsInInputs(inputs, WeatherSchema.TEMPERATURE, "temperature", k);
+    }
+
+    /**
+     * Finds the k lowest humidity readings across multiple files. Ties keep the records seen first.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param k The number of readings to return.
+     * @return Up to k readings from lowest to highest; empty if no valid humidity is found.
+     */
+    public List<RankedReading> lowestHumidityReadingsInManyFiles(List<File> selectedFiles, int k) {
+        return lowestHumidityReadingsInManyInputs(WeatherInput.ofFiles(selectedFiles), k);
+    }
+
+    /**
+     * Same as lowestHumidityReadingsInManyFiles, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param k The number of readings to return.
+     * @return Up to k readings from lowest to highest; empty if no valid humidity is found.
+     */
+    public List<RankedReading> lowestHumidityReadingsInManyInputs(List<? extends WeatherInput> inputs, int k) {
+        return lowestReadingsInInputs(inputs, WeatherSchema.HUMIDITY, "humidity", k);
+    }
+
+    private List<RankedReading> lowestReadingsInInputs(List<? extends WeatherInput> inputs, String column,
+                                                       String label, int k) {
+        MultiMetricScan scan = new MultiMetricScan();
+        LowestReadingsMetric metric = scan.add(new LowestReadingsMetric(column, label, k));
+        scan.scan(inputs);
+        return metric.getReadings().materialize(inputs);
+    }
+
+    /**
+     * Finds the k coldest hours across multiple files, scanning the files in parallel.
+     * Large files are split into ranges and small ones batched, as in SizeAwareScan,
+     * and the per-part heaps are merged. Ties keep the records seen first.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param k The number of hours to return, e.g. 100.
+     * @param pool The pool that runs the scans.
+     * @return Up to k readings from coldest to warmest; empty if no valid temperature is found.
+     */
+    public List<RankedReading> coldestHoursInManyFiles(List<File> selectedFiles, int k, ForkJoinPool pool) {
+        return coldestHoursInManyInputs(WeatherInput.ofFiles(selectedFiles), k, pool);
+    }
+
+    /**
+     * Same as coldestHoursInManyFiles with a pool, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param k The number of hours to return, e.g. 100.
+     * @param pool The pool that runs the scans.
+     * @return Up to k readings from coldest to warmest; empty if no valid temperature is found.
+     */
+    public List<RankedReading> coldestHoursInManyInputs(List<? extends WeatherInput> inputs, int k,
+                                                        ForkJoinPool pool) {
+        return lowestReadingsInInputs(inputs, WeatherSchema.TEMPERATURE, "temperature", k, pool);
+    }
+
+    /**
+     * Finds the k lowest humidity readings across multiple files, scanning the files
+     * in parallel. Ties keep the records seen first.
+     *
+     * @param selectedFiles A list of File objects to analyze.
+     * @param k The number of readings to return.
+     * @param pool The pool that runs the scans.
+     * @return Up to k readings from lowest to highest; empty if no valid humidity is found.
+     */
+    public List<RankedReading> lowestHumidityReadingsInManyFiles(List<File> selectedFiles, int k,
+                                                                 ForkJoinPool pool) {
+        return lowestHumidityReadingsInManyInputs(WeatherInput.ofFiles(selectedFiles), k, pool);
+    }
+
+    /**
+     * Same as lowestHumidityReadingsInManyFiles with a pool, for inputs such as the entries of a ZIP archive.
+     *
+     * @param inputs The inputs to analyze.
+     * @param k The number of readings to return.
+     * @param pool The pool that runs the scans.
+     * @return Up to k readings from lowest to highest; empty if no valid humidity is found.
+     */
+    public List<RankedReading> lowestHumidityReadingsInManyInputs(List<? extends WeatherInput> inputs, int k,
+                                                                  ForkJoinPool pool) {
+        return lowestReadingsInInputs(inputs, WeatherSchema.HUMIDITY, "humidity", k, pool);
+    }
+
+    private List<RankedReading> lowestReadingsInInputs(List<? extends WeatherInput> inputs, String column,
+                                                       String label, int k, ForkJoinPool pool) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Must keep at least one reading: " + k);
+        }
+        LowestReadings lowest = SizeAwareScan.scan(inputs, pool,
+                (index, scanner) -> lowestReadings(index, scanner, column, label, k));
+        return lowest == null ? new ArrayList<>() : lowest.materialize(inputs);
+    }
+
+    /**
+     * Collects the k lowest readings of a column in one input or range of one.
+     *
+     * @param inputIndex The position of the input in the input list.
+     * @param scanner The WeatherScanner positioned before the first record to examine.
+     * @param column The column to rank.
+     * @param label How the column is called in warnings, e.g. "humidity".
+     * @param k The number of readings to keep.
+     * @return The heap of the lowest readings and the number of records scanned.
+     */
+    private LowestReadings lowestReadings(int inputIndex, WeatherScanner scanner, String column, String label,
+                                          int k) {
+        int valueColumn = scanner.requireColumn(column);
+        scanner.project(valueColumn);
+        LowestReadings lowest = new LowestReadings(k);
+        while (scanner.next()) {
+            lowest.offer(scanner.readingOrNaN(valueColumn, label), inputIndex, scanner); // NaN is ignored
+        }
+        lowest.addRecords(scanner.recordNumber());
+        return lowest;
+    }
+
 
     // === Test Methods ===
-    // Updated to accept File/List<File> parameters
+    // Take File/List<File> parameters; the WeatherInput variants work on files and
+    // archive entries alike.
+    // Each test computes its result and hands it to a report method; main computes
+    // all results in one MultiMetricScan and calls the same report methods.
 
     /**
      * Tests the coldestHourInFile method using a specific file.
@@ -316,16 +1251,38 @@ public class WeatherDataParser {
      * @param fileToTest The File object to analyze.
      */
     public void testColdestHourInFile(File fileToTest) {
+        testColdestHourInFile(fileToTest == null ? null : WeatherInput.of(fileToTest));
+    }
+
+    /**
+     * Same as testColdestHourInFile, for an input such as an entry of a ZIP archive.
+     *
+     * @param fileToTest The file or archive entry to analyze.
+     */
+    public void testColdestHourInFile(WeatherInput fileToTest) {
         if (fileToTest == null) {
              System.out.println("No file provided for testColdestHourInFile.");
              return;
         }
-        FileResource fr = new FileResource(fileToTest);
-        CSVParser parser = fr.getCSVParser();
-        CSVRecord coldest = coldestHourInFile(parser);
+        WeatherRecord coldest;
+        try (WeatherScanner scanner = fileToTest.open()) {
+            coldest = coldestHourInFile(scanner);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading file: " + fileToTest.name() + " (" + e.getMessage() + ")");
+            return;
+        }
+        reportColdestHourInFile(fileToTest.name(), coldest);
+    }
 
+    /**
+     * Prints the result of coldestHourInFile.
+     *
+     * @param fileName The name of the analyzed file.
+     * @param coldest The coldest record, or null if there was none.
+     */
+    private void reportColdestHourInFile(String fileName, WeatherRecord coldest) {
         if (coldest != null) {
-            System.out.println("Coldest temperature in file " + fileToTest.getName()
+            System.out.println("Coldest temperature in file " + fileName
                                + " was " + coldest.get("TemperatureF") + " F");
             String time = "N/A";
              // Prefer DateUTC as per instructions
@@ -339,7 +1296,7 @@ public class WeatherDataParser {
             }
             System.out.println("Coldest temperature occurred at " + time);
         } else {
-            System.out.println("No valid temperature readings found in file " + fileToTest.getName());
+            System.out.println("No valid temperature readings found in file " + fileName);
         }
     }
 
@@ -349,46 +1306,39 @@ public class WeatherDataParser {
      * @param filesToTest A list of File objects to analyze.
      */
     public void testFileWithColdestTemperature(List<File> filesToTest) {
+        testInputWithColdestTemperature(filesToTest == null ? null : WeatherInput.ofFiles(filesToTest));
+    }
+
+    /**
+     * Same as testFileWithColdestTemperature, for inputs such as the entries of a ZIP archive.
+     *
+     * @param filesToTest The files or archive entries to analyze.
+     */
+    public void testInputWithColdestTemperature(List<? extends WeatherInput> filesToTest) {
          if (filesToTest == null || filesToTest.isEmpty()) {
              System.out.println("No files provided for testFileWithColdestTemperature.");
              return;
          }
+        // The listing is kept during the scan, so the file is not read again
+        reportFileWithColdestTemperature(inputWithColdestTemperature(filesToTest, true));
+    }
 
-        File theColdestFile = fileWithColdestTemperature(filesToTest); // Pass the list here
-
+    /**
+     * Prints the result of fileWithColdestTemperature, followed by all temperatures of that file.
+     *
+     * @param theColdestFile The summary of the coldest file, with its listing, or null if there was none.
+     */
+    private void reportFileWithColdestTemperature(FileSummary theColdestFile) {
         if (theColdestFile != null) {
-            System.out.println("Coldest day was in file " + theColdestFile.getName()); // Use getName for cleaner output
-
-            // Process that specific file again to print details
-            FileResource frColdest = new FileResource(theColdestFile);
-            CSVParser parserColdest = frColdest.getCSVParser();
-            CSVRecord coldestRecordInFile = coldestHourInFile(parserColdest); // Find coldest again in this specific file
-
-            if (coldestRecordInFile != null) {
-                 System.out.println("Coldest temperature on that day was "
-                                    + coldestRecordInFile.get("TemperatureF") + " F");
-
-                // Print all the temperatures from the coldest day's file
-                System.out.println("All the Temperatures on the coldest day were:");
-                // Re-create the FileResource and parser to iterate again.
-                FileResource frColdestAgain = new FileResource(theColdestFile);
-                CSVParser parserPrint = frColdestAgain.getCSVParser();
-                // int recordCount = 0; // Don't need count here based on assignment output
-                for (CSVRecord record : parserPrint) {
-                    // Only print if temperature is valid
-                    if (!record.get("TemperatureF").equals("-9999")) {
-                        // Use DateUTC for timestamp
-                        String time = record.isSet("DateUTC") ? record.get("DateUTC") : "Unknown Time";
-                        System.out.println(time + ": " + record.get("TemperatureF"));
-                    }
-                    // recordCount++;
-                }
-                // System.out.println("Total records processed: " + recordCount);
-
-            } else {
-                System.out.println("Could not re-read coldest temperature details from file: " + theColdestFile.getName());
+            System.out.println("Coldest day was in file " + theColdestFile.getName());
+            System.out.println("Coldest temperature on that day was "
+                               + theColdestFile.getMinimumRecord().get("TemperatureF") + " F");
+
+            // Print all the temperatures from the coldest day's file, as kept during the scan
+            System.out.println("All the Temperatures on the coldest day were:");
+            for (String line : theColdestFile.getListing()) {
+                System.out.println(line);
             }
-
         } else {
             System.out.println("Unable to find file with coldest temperature among the selected files.");
         }
@@ -400,20 +1350,42 @@ public class WeatherDataParser {
      * @param fileToTest The File object to analyze.
      */
     public void testLowestHumidityInFile(File fileToTest) {
+        testLowestHumidityInFile(fileToTest == null ? null : WeatherInput.of(fileToTest));
+    }
+
+    /**
+     * Same as testLowestHumidityInFile, for an input such as an entry of a ZIP archive.
+     *
+     * @param fileToTest The file or archive entry to analyze.
+     */
+    public void testLowestHumidityInFile(WeatherInput fileToTest) {
         if (fileToTest == null) {
              System.out.println("No file provided for testLowestHumidityInFile.");
              return;
         }
-        FileResource fr = new FileResource(fileToTest);
-        CSVParser parser = fr.getCSVParser();
-        CSVRecord lowestHumidity = lowestHumidityInFile(parser);
+        WeatherRecord lowestHumidity;
+        try (WeatherScanner scanner = fileToTest.open()) {
+            lowestHumidity = lowestHumidityInFile(scanner);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading file: " + fileToTest.name() + " (" + e.getMessage() + ")");
+            return;
+        }
+        reportLowestHumidityInFile(fileToTest.name(), lowestHumidity);
+    }
 
+    /**
+     * Prints the result of lowestHumidityInFile.
+     *
+     * @param fileName The name of the analyzed file.
+     * @param lowestHumidity The record with the lowest humidity, or null if there was none.
+     */
+    private void reportLowestHumidityInFile(String fileName, WeatherRecord lowestHumidity) {
         if (lowestHumidity != null) {
-            System.out.println("Lowest Humidity in file " + fileToTest.getName()
+            System.out.println("Lowest Humidity in file " + fileName
                                + " was " + lowestHumidity.get("Humidity") +
                                " at " + lowestHumidity.get("DateUTC")); // Use DateUTC as requested
         } else {
-            System.out.println("No valid humidity readings found in file " + fileToTest.getName());
+            System.out.println("No valid humidity readings found in file " + fileName);
         }
     }
 
@@ -423,13 +1395,28 @@ public class WeatherDataParser {
      * @param filesToTest A list of File objects to analyze.
      */
     public void testLowestHumidityInManyFiles(List<File> filesToTest) {
+        testLowestHumidityInManyInputs(filesToTest == null ? null : WeatherInput.ofFiles(filesToTest));
+    }
+
+     /**
+     * Same as testLowestHumidityInManyFiles, for inputs such as the entries of a ZIP archive.
+     *
+     * @param filesToTest The files or archive entries to analyze.
+     */
+    public void testLowestHumidityInManyInputs(List<? extends WeatherInput> filesToTest) {
         if (filesToTest == null || filesToTest.isEmpty()) {
              System.out.println("No files provided for testLowestHumidityInManyFiles.");
              return;
          }
+        reportLowestHumidityInManyFiles(lowestHumidityInManyInputs(filesToTest));
+    }
 
-        CSVRecord lowestOverall = lowestHumidityInManyFiles(filesToTest);
-
+    /**
+     * Prints the result of lowestHumidityInManyFiles.
+     *
+     * @param lowestOverall The record with the lowest humidity, or null if there was none.
+     */
+    private void reportLowestHumidityInManyFiles(WeatherRecord lowestOverall) {
         if (lowestOverall != null) {
              System.out.println("Lowest Humidity was " + lowestOverall.get("Humidity") +
                                 " at " + lowestOverall.get("DateUTC"));
@@ -444,18 +1431,40 @@ public class WeatherDataParser {
      * @param fileToTest The File object to analyze.
      */
     public void testAverageTemperatureInFile(File fileToTest) {
+        testAverageTemperatureInFile(fileToTest == null ? null : WeatherInput.of(fileToTest));
+    }
+
+    /**
+     * Same as testAverageTemperatureInFile, for an input such as an entry of a ZIP archive.
+     *
+     * @param fileToTest The file or archive entry to analyze.
+     */
+    public void testAverageTemperatureInFile(WeatherInput fileToTest) {
         if (fileToTest == null) {
              System.out.println("No file provided for testAverageTemperatureInFile.");
              return;
         }
-        FileResource fr = new FileResource(fileToTest);
-        CSVParser parser = fr.getCSVParser();
-        double averageTemp = averageTemperatureInFile(parser);
+        double averageTemp;
+        try (WeatherScanner scanner = fileToTest.open()) {
+            averageTemp = averageTemperatureInFile(scanner);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading file: " + fileToTest.name() + " (" + e.getMessage() + ")");
+            return;
+        }
+        reportAverageTemperatureInFile(fileToTest.name(), averageTemp);
+    }
 
+    /**
+     * Prints the result of averageTemperatureInFile.
+     *
+     * @param fileName The name of the analyzed file.
+     * @param averageTemp The average temperature, or Double.NaN if there was none.
+     */
+    private void reportAverageTemperatureInFile(String fileName, double averageTemp) {
         if (!Double.isNaN(averageTemp)) {
-            System.out.println("Average temperature in file " + fileToTest.getName() + " is " + averageTemp);
+            System.out.println("Average temperature in file " + fileName + " is " + averageTemp);
         } else {
-            System.out.println("No valid temperature readings found in file " + fileToTest.getName());
+            System.out.println("No valid temperature readings found in file " + fileName);
         }
     }
 
@@ -465,16 +1474,37 @@ public class WeatherDataParser {
      * @param fileToTest The File object to analyze.
      */
     public void testAverageTemperatureWithHighHumidityInFile(File fileToTest) {
+        testAverageTemperatureWithHighHumidityInFile(fileToTest == null ? null : WeatherInput.of(fileToTest));
+    }
+
+    /**
+     * Same as testAverageTemperatureWithHighHumidityInFile, for an input such as an entry of a ZIP archive.
+     *
+     * @param fileToTest The file or archive entry to analyze.
+     */
+    public void testAverageTemperatureWithHighHumidityInFile(WeatherInput fileToTest) {
          if (fileToTest == null) {
              System.out.println("No file provided for testAverageTemperatureWithHighHumidityInFile.");
              return;
         }
-        FileResource fr = new FileResource(fileToTest);
-        CSVParser parser = fr.getCSVParser();
-        int humidityThreshold = 80; // As specified in the example
-        double averageTemp = averageTemperatureWithHighHumidityInFile(parser, humidityThreshold);
+        double averageTemp;
+        try (WeatherScanner scanner = fileToTest.open()) {
+            averageTemp = averageTemperatureWithHighHumidityInFile(scanner, HIGH_HUMIDITY_THRESHOLD);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading file: " + fileToTest.name() + " (" + e.getMessage() + ")");
+            return;
+        }
+        reportAverageTemperatureWithHighHumidityInFile(fileToTest.name(), averageTemp);
+    }
 
-        System.out.print("Testing average temperature with humidity >= " + humidityThreshold + " in file " + fileToTest.getName() + ": ");
+    /**
+     * Prints the result of averageTemperatureWithHighHumidityInFile.
+     *
+     * @param fileName The name of the analyzed file.
+     * @param averageTemp The average temperature, or Double.NaN if no record qualified.
+     */
+    private void reportAverageTemperatureWithHighHumidityInFile(String fileName, double averageTemp) {
+        System.out.print("Testing average temperature with humidity >= " + HIGH_HUMIDITY_THRESHOLD + " in file " + fileName + ": ");
         if (!Double.isNaN(averageTemp)) {
             System.out.println("Average Temp when high Humidity is " + averageTemp);
         } else {
@@ -489,13 +1519,28 @@ public class WeatherDataParser {
      * @param filesToTest A list of File objects to analyze.
      */
     public void testColdestHourInManyFiles(List<File> filesToTest) {
+        testColdestHourInManyInputs(filesToTest == null ? null : WeatherInput.ofFiles(filesToTest));
+    }
+
+    /**
+     * Same as testColdestHourInManyFiles, for inputs such as the entries of a ZIP archive.
+     *
+     * @param filesToTest The files or archive entries to analyze.
+     */
+    public void testColdestHourInManyInputs(List<? extends WeatherInput> filesToTest) {
         if (filesToTest == null || filesToTest.isEmpty()) {
              System.out.println("No files provided for testColdestHourInManyFiles.");
              return;
         }
+        reportColdestHourInManyFiles(coldestHourInManyInputs(filesToTest));
+    }
 
-        CSVRecord coldestOverall = coldestHourInManyFiles(filesToTest);
-
+    /**
+     * Prints the result of coldestHourInManyFiles.
+     *
+     * @param coldestOverall The coldest record, or null if there was none.
+     */
+    private void reportColdestHourInManyFiles(WeatherRecord coldestOverall) {
         if (coldestOverall != null) {
              System.out.println("Overall coldest temperature was " + coldestOverall.get("TemperatureF") + "F" +
                                 " at " + coldestOverall.get("DateUTC"));
@@ -518,13 +1563,33 @@ public class WeatherDataParser {
      * 6. Average temperature with high humidity in the first selected file.
      * 7. Absolute coldest hour among all selected files. // <-- Added
      *
-     * @param args Command line arguments (not used).
+     * Files are picked in a dialog, unless a ZIP archive is given on the command
+     * line, in which case its CSV entries are read without extracting them.
+     *
+     * @param args Optional: a .zip archive of weather files, followed by a folder inside
+     * it (e.g. "nc_weather/2014/") to limit the analysis to.
      */
     public static void main(String[] args) {
         // Adjust working directory if needed (or remove if running from correct dir)
         System.setProperty("user.dir", "C:\\Users\\inouy\\Downloads\\nc_weather\\nc_weather\\2014"); // Example path structure
         WeatherDataParser tester = new WeatherDataParser();
 
+        // --- Or read CSV text piped to stdin ---
+        if (args.length > 0 && args[0].equals("-")) {
+            runTests(tester, List.of(WeatherInput.of(System.in, "stdin")));
+            return;
+        }
+
+        // --- Or read an archive in place ---
+        if (args.length > 0 && ZipWeatherArchive.isZip(new File(args[0]))) {
+            try (ZipWeatherArchive archive = new ZipWeatherArchive(new File(args[0]))) {
+                runTests(tester, archive.entries(args.length > 1 ? args[1] : ""));
+            } catch (IOException e) {
+                System.err.println("Error reading file: " + args[0] + " (" + e.getMessage() + ")");
+            }
+            return;
+        }
+
         // --- Select Files ONCE ---
         System.out.println("Please select the weather data file(s) for analysis...");
         DirectoryResource dr = new DirectoryResource();
@@ -533,45 +1598,74 @@ public class WeatherDataParser {
             selectedFiles.add(f);
         }
 
+        runTests(tester, WeatherInput.ofFiles(selectedFiles));
+    }
+
+    /**
+     * Runs all tests on the selected inputs. All seven results are computed in a
+     * single MultiMetricScan, so every input is read exactly once, and then reported
+     * with the same messages as the individual test methods.
+     *
+     * @param tester The parser to test.
+     * @param selectedFiles The files or archive entries to analyze.
+     */
+    private static void runTests(WeatherDataParser tester, List<WeatherInput> selectedFiles) {
         if (selectedFiles.isEmpty()) {
             System.out.println("No files were selected. Exiting.");
             return; // Stop if no files are chosen
         }
 
         // Get the first file for tests that need only one
-        File firstFile = selectedFiles.get(0);
+        WeatherInput firstFile = selectedFiles.get(0);
+
+        // --- Compute everything in one pass ---
+        MultiMetricScan scan = new MultiMetricScan();
+        MinimumMetric coldestInFirst = scan.add(new MinimumMetric(WeatherSchema.TEMPERATURE, "temperature", 0));
+        MinimumMetric driestInFirst = scan.add(new MinimumMetric(WeatherSchema.HUMIDITY, "humidity", 0));
+        MeanMetric meanInFirst = scan.add(new MeanMetric(WeatherSchema.TEMPERATURE, "temperature", 0));
+        QueryMetric humidMeanInFirst =
+                scan.add(meanTemperatureWithHumidityAtLeast(HIGH_HUMIDITY_THRESHOLD).metric(0)); // As in the query API
+        ColdestFileMetric coldestFile = scan.add(new ColdestFileMetric(true));
+        MinimumMetric driestOverall = scan.add(new MinimumMetric(WeatherSchema.HUMIDITY, "humidity"));
+        scan.scan(selectedFiles);
+
+        // The coldest file's coldest record is also the absolute coldest hour (test 7)
+        FileSummary coldest = coldestFile.getColdest();
 
         // --- Run Tests ---
 
         System.out.println("\n=== Test 1: Coldest Hour in File (First Selected File) ===");
-        tester.testColdestHourInFile(firstFile);
+        tester.reportColdestHourInFile(firstFile.name(), coldestInFirst.getRecord());
         System.out.println();
 
         System.out.println("=== Test 2: File with Coldest Temperature (Across All Selected Files) ===");
-        tester.testFileWithColdestTemperature(selectedFiles); // Pass the whole list
+        noteEmptyInputs("temperature", coldestFile.getEmptyInputs());
+        tester.reportFileWithColdestTemperature(coldest);
         System.out.println();
 
         System.out.println("=== Test 3: Lowest Humidity in File (First Selected File) ===");
-        tester.testLowestHumidityInFile(firstFile);
+        tester.reportLowestHumidityInFile(firstFile.name(), driestInFirst.getRecord());
         System.out.println();
 
         System.out.println("=== Test 4: Lowest Humidity in Many Files (Across All Selected Files) ===");
-        tester.testLowestHumidityInManyFiles(selectedFiles); // Pass the whole list
+        noteEmptyInputs("humidity", driestOverall.getEmptyInputs());
+        tester.reportLowestHumidityInManyFiles(driestOverall.getRecord());
         System.out.println();
 
         System.out.println("=== Test 5: Average Temperature in File (First Selected File) ===");
-        tester.testAverageTemperatureInFile(firstFile);
+        tester.reportAverageTemperatureInFile(firstFile.name(), meanInFirst.mean());
         System.out.println();
 
         System.out.println("=== Test 6: Average Temperature with High Humidity (First Selected File) ===");
-        tester.testAverageTemperatureWithHighHumidityInFile(firstFile);
+        tester.reportAverageTemperatureWithHighHumidityInFile(firstFile.name(),
+                                                             humidMeanInFirst.getResult().getValue());
         System.out.println();
 
         // --- Added Test 7 ---
         System.out.println("=== Test 7: Absolute Coldest Hour (Across All Selected Files) ===");
-        tester.testColdestHourInManyFiles(selectedFiles); // Pass the whole list
+        tester.reportColdestHourInManyFiles(coldest != null ? coldest.getMinimumRecord() : null);
         System.out.println();
 
         System.out.println("=== All tests complete. ===");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WeatherInput is one source of weather CSV data: a file on disk (plain or .gz),
+ * an entry of a ZIP archive (see ZipWeatherArchive), or a stream such as stdin.
+ * The multi-file analyses work on lists of inputs, so the same code reads an
+ * extracted directory tree, a yearly archive without extracting it, or a pipe.
+ */
+public interface WeatherInput {
+
+    /**
+     * @return The name used in reports, e.g. "weather-2014-01-08.csv".
+     */
+    String name();
+
+    /**
+     * Opens a scanner over the input.
+     *
+     * @return A scanner positioned before the first record.
+     * @throws IOException if the input cannot be opened or has no header.
+     */
+    WeatherScanner open() throws IOException;
+
+    /**
+     * Opens a scanner to revisit a record seen in an earlier scan. Inputs that can
+     * seek start at the record; others start at the beginning, so callers skip
+     * records until recordOffset() reaches the offset. Either way recordOffset()
+     * matches the earlier scan, but recordNumber() may count from the seek point.
+     *
+     * @param offset The recordOffset() of a record from an earlier scan.
+     * @return A scanner positioned before that record or before an earlier one.
+     * @throws IOException if the input cannot be opened or has no header.
+     */
+    default WeatherScanner openAt(long offset) throws IOException {
+        return open();
+    }
+
+    /**
+     * @return true if the input can be opened more than once; false for streams,
+     * which the first open consumes.
+     */
+    default boolean isReopenable() {
+        return true;
+    }
+
+    /**
+     * @return true if openRange can scan parts of the input independently, which is
+     * the case for plain files but not for anything that has to be inflated.
+     */
+    default boolean isSplittable() {
+        return false;
+    }
+
+    /**
+     * Opens a scanner over the records that start in a byte range of the input, as
+     * WeatherScanner.open(File, long, long) does for files.
+     *
+     * @param rangeStart The first byte offset of the range.
+     * @param rangeEnd The byte offset just past the range.
+     * @return A scanner positioned before the first record starting in the range.
+     * @throws IOException if the input cannot be opened or has no header.
+     * @throws IllegalArgumentException if the input is not splittable.
+     */
+    default WeatherScanner openRange(long rangeStart, long rangeEnd) throws IOException {
+        throw new IllegalArgumentException("Cannot scan a byte range of " + name());
+    }
+
+    /**
+     * Opens the CSV text of the input as a stream, decompressed if needed.
+     *
+     * @return A stream of the CSV bytes.
+     * @throws IOException if the input cannot be opened.
+     */
+    InputStream openStream() throws IOException;
+
+    /**
+     * @return true if reading the input means inflating it, which is worth
+     * starting ahead of time on another thread.
+     */
+    boolean isCompressed();
+
+    /**
+     * @return The number of CSV bytes the input holds, or -1 if not known up front.
+     */
+    long size();
+
+    /**
+     * @param file A weather file, plain or gzip-compressed.
+     * @return The file as an input.
+     */
+    static WeatherInput of(File file) {
+        return new FileWeatherInput(file);
+    }
+
+    /**
+     * @param in A stream of weather CSV text, header line first, e.g. System.in.
+     * @param name A name for the input, used in reports.
+     * @return The stream as an input that can be read once.
+     */
+    static WeatherInput of(InputStream in, String name) {
+        return new StreamWeatherInput(in, name);
+    }
+
+    /**
+     * @param files Weather files, plain or gzip-compressed.
+     * @return The files as inputs, in the same order.
+     */
+    static List<WeatherInput> ofFiles(List<File> files) {
+        List<WeatherInput> inputs = new ArrayList<>(files.size());
+        for (File file : files) {
+            inputs.add(of(file));
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * WeatherMetric is one aggregation computed by a MultiMetricScan, such as the
+ * coldest reading or an average temperature.
+ *
+ * The scan reads each input once and hands every record to all metrics that
+ * want that input, so several analyses share the I/O and the tokenizing of a
+ * single pass. A metric keeps its own state across inputs.
+ */
+public interface WeatherMetric {
+
+    /** Input index meaning "every input of the scan". */
+    int ALL_INPUTS = -1;
+
+    /**
+     * @param inputIndex The position of an input in the scan.
+     * @return true if this metric wants the records of that input.
+     */
+    default boolean reads(int inputIndex) {
+        return true;
+    }
+
+    /**
+     * Prepares for the records of one input, resolving column indexes against its header.
+     *
+     * @param inputIndex The position of the input in the scan.
+     * @param scanner The scanner over the input, positioned before the first record.
+     * @return The columns this metric reads from the input.
+     * @throws IllegalArgumentException if a column the metric needs is missing.
+     */
+    int[] begin(int inputIndex, WeatherScanner scanner);
+
+    /**
+     * Updates the metric with the current record.
+     *
+     * @param scanner The scanner positioned on the record.
+     */
+    void accept(WeatherScanner scanner);
+
+    /**
+     * Updates the metric with all remaining records of an input. The scan calls
+     * this instead of accept() when this is the only metric reading the input, so
+     * a metric can run its own specialized loop.
+     *
+     * @param scanner The scanner over the input.
+     */
+    default void acceptAll(WeatherScanner scanner) {
+        while (scanner.next()) {
+            accept(scanner);
+        }
+    }
+
+    /**
+     * Called after the last record of an input.
+     *
+     * @param scanner The scanner over the input, at its end.
+     */
+    default void end(WeatherScanner scanner) {
+    }
+}
@@ -0,0 +1,153 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WeatherNumbers parses the numeric fields of the weather files (TemperatureF,
+ * Humidity, ...) straight from bytes, without building a String first.
+ *
+ * The fast path covers plain decimals such as "42.1", "-3", "96" or "0.25":
+ * an optional sign, at most 15 significant digits and at most one decimal point.
+ * Such a value is computed as mantissa / 10^fractionDigits. Both operands are exact
+ * doubles (mantissa below 2^53, power of ten at most 10^22) and IEEE division is
+ * correctly rounded, so the result is bit-for-bit what Double.parseDouble returns.
+ * Anything else (exponents, whitespace, "NaN", very long digit strings) falls back
+ * to Double.parseDouble, which also supplies the NumberFormatException for bad input.
+ */
+public final class WeatherNumbers {
+
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int[] INT_POWERS_OF_TEN = {
+        1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+    };
+
+    private WeatherNumbers() {
+    }
+
+    /**
+     * Parses bytes [start, end) of a buffer as a double.
+     *
+     * @param buffer The buffer holding the field.
+     * @param start Index of the first byte of the field.
+     * @param end Index one past the last byte of the field.
+     * @return The parsed value, identical to Double.parseDouble on the same text.
+     * @throws NumberFormatException if the field is not a number.
+     */
+    public static double parseDouble(ByteBuffer buffer, int start, int end) {
+        int p = start;
+        boolean negative = false;
+        if (p < end) {
+            byte sign = buffer.get(p);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                p++;
+            }
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean seenDigit = false;
+        for (; p < end; p++) {
+            int b = buffer.get(p);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    digits++; // Leading zeros don't count against precision
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return slowParseDouble(buffer, start, end);
+            }
+            if (digits > MAX_FAST_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+                return slowParseDouble(buffer, start, end);
+            }
+        }
+        if (!seenDigit) {
+            return slowParseDouble(buffer, start, end); // "", "-" or "." are not numbers
+        }
+        double value = (double) mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses bytes [start, end) of a buffer as a fixed-point number, e.g. "42.1"
+     * with scale 1 gives 421. Values with more fraction digits than the scale go
+     * through Double.parseDouble and are rounded half away from zero.
+     *
+     * @param buffer The buffer holding the field.
+     * @param start Index of the first byte of the field.
+     * @param end Index one past the last byte of the field.
+     * @param scale The number of decimal places kept, 0 to 9.
+     * @return The value multiplied by 10^scale.
+     * @throws NumberFormatException if the field is not a number or does not fit in an int.
+     */
+    public static int parseFixed(ByteBuffer buffer, int start, int end, int scale) {
+        int p = start;
+        boolean negative = false;
+        if (p < end && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+            negative = buffer.get(p) == '-';
+            p++;
+        }
+        long value = 0;
+        int fractionDigits = -1; // -1 until the decimal point is seen
+        int digits = 0;
+        for (; p < end; p++) {
+            int b = buffer.get(p);
+            if (b >= '0' && b <= '9') {
+                if (fractionDigits == scale) {
+                    return slowParseFixed(buffer, start, end, scale); // Needs rounding
+                }
+                value = value * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+                if (value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Value out of range: " + decode(buffer, start, end));
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return slowParseFixed(buffer, start, end, scale);
+            }
+        }
+        if (digits == 0) {
+            return slowParseFixed(buffer, start, end, scale);
+        }
+        value *= INT_POWERS_OF_TEN[scale - Math.max(fractionDigits, 0)];
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range: " + decode(buffer, start, end));
+        }
+        return negative ? (int) -value : (int) value;
+    }
+
+    private static double slowParseDouble(ByteBuffer buffer, int start, int end) {
+        return Double.parseDouble(decode(buffer, start, end));
+    }
+
+    private static int slowParseFixed(ByteBuffer buffer, int start, int end, int scale) {
+        double scaled = slowParseDouble(buffer, start, end) * INT_POWERS_OF_TEN[scale];
+        scaled = scaled < 0 ? -Math.floor(-scaled + 0.5) : Math.floor(scaled + 0.5); // Half away from zero
+        if (Double.isNaN(scaled) || scaled > Integer.MAX_VALUE || scaled < Integer.MIN_VALUE) {
+            throw new NumberFormatException("Value out of range: " + decode(buffer, start, end));
+        }
+        return (int) scaled;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
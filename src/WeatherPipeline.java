@@ -0,0 +1,532 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * WeatherPipeline reads, parses and aggregates a column of many inputs in three
+ * stages on separate threads, connected by bounded lock-free SpscRings:
+ *
+ *   reader --raw byte blocks--> parser threads --primitive readings--> aggregator
+ *
+ * The reader thread reads each input in blocks of about a megabyte, cut at line
+ * ends, and repeats the header at the front of every block after the first, so each
+ * block can be scanned on its own. Blocks are dealt round-robin to the parser
+ * threads, each with its own pair of rings. A parser scans a block with a
+ * WeatherScanner and turns it into a batch of (time, value) readings in two primitive
+ * arrays. The aggregator, which is the calling thread, collects the batches from the
+ * parsers in the same round-robin order, so it sees the readings in input order, and
+ * hands each batch to an Aggregator. It also prints the parsers' warnings about
+ * unparseable readings, numbered as in a scan of the whole input.
+ *
+ * Each stage records how long it was busy and how long it waited for input or for
+ * room in its output ring; getStageStats() shows which stage limits throughput.
+ * Like ranged scans, blocks are cut at newlines, so quoted fields must not contain
+ * line breaks.
+ */
+public class WeatherPipeline {
+
+    /**
+     * Consumes batches of readings on the aggregator thread.
+     */
+    public interface Aggregator {
+
+        /**
+         * @param times The DateUTC of each reading in epoch seconds, or WeatherTime.UNKNOWN.
+         * @param values The readings. Missing, unparseable and NaN readings are already left out.
+         * @param count The number of readings; the arrays may be longer.
+         */
+        void accept(long[] times, double[] values, int count);
+    }
+
+    /**
+     * StageStats is where the time of one stage went during the last run.
+     */
+    public static final class StageStats {
+
+        private final String name;
+        private final long busyNanos;
+        private final long inputWaitNanos;
+        private final long outputWaitNanos;
+        private final long batches;
+
+        StageStats(String name, long busyNanos, long inputWaitNanos, long outputWaitNanos, long batches) {
+            this.name = name;
+            this.busyNanos = busyNanos;
+            this.inputWaitNanos = inputWaitNanos;
+            this.outputWaitNanos = outputWaitNanos;
+            this.batches = batches;
+        }
+
+        /**
+         * @return The stage name, e.g. "reader", "parser-2" or "aggregator".
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The fraction of the stage's time spent working rather than waiting.
+         * The stage closest to 1 is the one limiting throughput.
+         */
+        public double utilization() {
+            long total = busyNanos + inputWaitNanos + outputWaitNanos;
+            return total > 0 ? (double) busyNanos / total : 0;
+        }
+
+        /**
+         * @return Nanoseconds spent working.
+         */
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        /**
+         * @return Nanoseconds spent waiting for the previous stage (for the reader: none).
+         */
+        public long getInputWaitNanos() {
+            return inputWaitNanos;
+        }
+
+        /**
+         * @return Nanoseconds spent waiting for room in the next stage's ring.
+         */
+        public long getOutputWaitNanos() {
+            return outputWaitNanos;
+        }
+
+        /**
+         * @return The number of batches the stage produced (the aggregator: consumed).
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        @Override
+        public String toString() {
+            long total = Math.max(1, busyNanos + inputWaitNanos + outputWaitNanos);
+            return String.format("%s: %.0f%% busy, %.0f%% waiting for input, %.0f%% waiting for output, %d batches",
+                                 name, 100.0 * busyNanos / total, 100.0 * inputWaitNanos / total,
+                                 100.0 * outputWaitNanos / total, batches);
+        }
+    }
+
+    /** Bytes per raw block. Large enough that per-block overhead is negligible. */
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    /** Blocks or batches a ring holds between two stages. */
+    public static final int DEFAULT_RING_CAPACITY = 16;
+
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final long PARK_NANOS = 20_000;
+
+    private static final RawBlock END_OF_BLOCKS = new RawBlock(null, new byte[0], 0, false);
+    private static final ReadingBatch END_OF_READINGS = new ReadingBatch(0);
+
+    private final int parsers;
+    private final int blockSize;
+    private final int ringCapacity;
+    private volatile List<StageStats> stageStats = List.of();
+
+    /**
+     * Creates a pipeline with default block size and ring capacity.
+     *
+     * @param parsers The number of parser threads.
+     */
+    public WeatherPipeline(int parsers) {
+        this(parsers, DEFAULT_BLOCK_SIZE, DEFAULT_RING_CAPACITY);
+    }
+
+    /**
+     * @param parsers The number of parser threads.
+     * @param blockSize The number of bytes the reader reads per block.
+     * @param ringCapacity The number of blocks or batches buffered between two stages.
+     */
+    public WeatherPipeline(int parsers, int blockSize, int ringCapacity) {
+        if (parsers < 1 || blockSize < 1 || ringCapacity < 1) {
+            throw new IllegalArgumentException("Parsers, block size and ring capacity must be positive: "
+                                               + parsers + ", " + blockSize + ", " + ringCapacity);
+        }
+        this.parsers = parsers;
+        this.blockSize = blockSize;
+        this.ringCapacity = ringCapacity;
+    }
+
+    /**
+     * Runs the pipeline over the inputs, handing the readings of a column to an
+     * aggregator in input order. Inputs that cannot be read are reported and skipped.
+     *
+     * @param inputs The inputs to read.
+     * @param column The column to extract, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param aggregator Receives the readings on the calling thread.
+     * @throws IllegalArgumentException if an input has no such column.
+     */
+    public void run(List<? extends WeatherInput> inputs, String column, String label, Aggregator aggregator) {
+        run(inputs, column, label, true, aggregator);
+    }
+
+    /**
+     * Same as run, optionally without decoding DateUTC, which is a large part of the
+     * parsing work when the aggregate does not depend on time (e.g. a plain average).
+     *
+     * @param inputs The inputs to read.
+     * @param column The column to extract, e.g. WeatherSchema.TEMPERATURE.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param withTimes Whether to decode DateUTC; if not, all times are WeatherTime.UNKNOWN.
+     * @param aggregator Receives the readings on the calling thread.
+     * @throws IllegalArgumentException if an input has no such column.
+     */
+    public void run(List<? extends WeatherInput> inputs, String column, String label, boolean withTimes,
+                    Aggregator aggregator) {
+        Run run = new Run(inputs, column, label, withTimes);
+        run.start();
+        try {
+            run.aggregate(aggregator);
+        } catch (RuntimeException | Error e) {
+            run.fail(e);
+        } finally {
+            run.finish();
+        }
+        stageStats = run.stats();
+        run.rethrow();
+    }
+
+    /**
+     * @return Per-stage utilization of the last run, reader first and aggregator last.
+     */
+    public List<StageStats> getStageStats() {
+        return stageStats;
+    }
+
+    /** The threads, rings and timings of one run. */
+    private final class Run {
+        private final List<? extends WeatherInput> inputs;
+        private final String column;
+        private final String label;
+        private final boolean withTimes;
+        private final List<SpscRing<RawBlock>> blockRings = new ArrayList<>();
+        private final List<SpscRing<ReadingBatch>> batchRings = new ArrayList<>();
+        private final List<Thread> threads = new ArrayList<>();
+        private final long[][] timings; // Per stage: busy, input wait, output wait, batches
+        private volatile Throwable failure;
+
+        Run(List<? extends WeatherInput> inputs, String column, String label, boolean withTimes) {
+            this.inputs = inputs;
+            this.column = column;
+            this.label = label;
+            this.withTimes = withTimes;
+            this.timings = new long[parsers + 2][4];
+            for (int i = 0; i < parsers; i++) {
+                blockRings.add(new SpscRing<>(ringCapacity));
+                batchRings.add(new SpscRing<>(ringCapacity));
+            }
+        }
+
+        void start() {
+            threads.add(new Thread(this::read, "weather-pipeline-reader"));
+            for (int i = 0; i < parsers; i++) {
+                int parser = i;
+                threads.add(new Thread(() -> parse(parser), "weather-pipeline-parser-" + (i + 1)));
+            }
+            for (Thread thread : threads) {
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        // === Reader Stage ===
+
+        private void read() {
+            long[] timing = timings[0];
+            long started = System.nanoTime();
+            long sequence = 0;
+            try {
+                for (WeatherInput input : inputs) {
+                    try (InputStream in = input.openStream()) {
+                        sequence = readBlocks(input.name(), in, sequence, timing);
+                    } catch (IOException | UncheckedIOException e) {
+                        System.err.println("Error reading file: " + input.name() + " (" + e.getMessage() + ")");
+                    }
+                }
+                for (int i = 0; i < parsers; i++) {
+                    put(blockRings.get((int) ((sequence + i) % parsers)), END_OF_BLOCKS, timing);
+                }
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            } finally {
+                timing[0] = System.nanoTime() - started - timing[2];
+            }
+        }
+
+        /** Reads one input in line-aligned blocks, each after the first prefixed with the header. */
+        private long readBlocks(String name, InputStream in, long sequence, long[] timing) throws IOException {
+            byte[] header = null;
+            byte[] pending = new byte[0];
+            while (true) {
+                int prefix = header == null ? 0 : header.length;
+                byte[] block = new byte[prefix + pending.length + blockSize];
+                if (header != null) {
+                    System.arraycopy(header, 0, block, 0, prefix);
+                }
+                System.arraycopy(pending, 0, block, prefix, pending.length);
+                int length = prefix + pending.length;
+                int read = in.readNBytes(block, length, blockSize);
+                length += read;
+                boolean ended = read < blockSize;
+                if (header == null) {
+                    int headerEnd = indexOfNewline(block, 0, length);
+                    if (headerEnd < 0 && !ended) {
+                        pending = Arrays.copyOf(block, length); // The header is longer than a block
+                        continue;
+                    }
+                    header = Arrays.copyOf(block, headerEnd + 1);
+                }
+                int cut = ended ? length : lastIndexOfNewline(block, prefix, length) + 1;
+                if (cut <= prefix && !ended) {
+                    pending = Arrays.copyOfRange(block, prefix, length); // One line is longer than a block
+                    continue;
+                }
+                if (prefix == 0 || cut > prefix) { // Later blocks holding only the header are dropped
+                    put(blockRings.get((int) (sequence % parsers)), new RawBlock(name, block, cut, prefix == 0),
+                        timing);
+                    sequence++;
+                }
+                pending = Arrays.copyOfRange(block, cut, length);
+                if (ended) {
+                    return sequence;
+                }
+            }
+        }
+
+        // === Parser Stage ===
+
+        private void parse(int parser) {
+            long[] timing = timings[parser + 1];
+            long started = System.nanoTime();
+            SpscRing<RawBlock> in = blockRings.get(parser);
+            SpscRing<ReadingBatch> out = batchRings.get(parser);
+            try {
+                while (true) {
+                    RawBlock block = take(in, timing);
+                    if (block == END_OF_BLOCKS) {
+                        put(out, END_OF_READINGS, timing);
+                        return;
+                    }
+                    put(out, readings(block), timing);
+                }
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            } finally {
+                timing[0] = System.nanoTime() - started - timing[1] - timing[2];
+            }
+        }
+
+        private ReadingBatch readings(RawBlock block) {
+            try (WeatherScanner scanner = WeatherScanner.open(block.bytes, block.length, block.name)) {
+                int valueColumn = scanner.requireColumn(column);
+                int dateColumn = withTimes ? scanner.schema().dateUtc() : -1;
+                scanner.project(valueColumn, dateColumn);
+                ReadingBatch batch = new ReadingBatch(Math.max(16, block.length / 64));
+                while (scanner.next()) {
+                    // Record numbers restart in each block, so warnings wait for the aggregator
+                    double value = scanner.readingOrNaN(valueColumn, label, batch.warnings);
+                    if (!Double.isNaN(value)) {
+                        batch.add(dateColumn >= 0 ? scanner.getDateUtc(dateColumn) : WeatherTime.UNKNOWN, value);
+                    }
+                }
+                batch.records = scanner.recordNumber();
+                batch.firstOfInput = block.firstOfInput;
+                return batch;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading " + block.name, e); // In-memory, so unexpected
+            }
+        }
+
+        // === Aggregator Stage ===
+
+        void aggregate(Aggregator aggregator) {
+            long[] timing = timings[parsers + 1];
+            long started = System.nanoTime();
+            long recordsBefore = 0; // Records of the current input in earlier blocks
+            try {
+                for (long sequence = 0; ; sequence++) {
+                    ReadingBatch batch = take(batchRings.get((int) (sequence % parsers)), timing);
+                    if (batch == END_OF_READINGS) {
+                        return;
+                    }
+                    if (batch.firstOfInput) {
+                        recordsBefore = 0;
+                    }
+                    batch.warnings.print(recordsBefore);
+                    recordsBefore += batch.records;
+                    aggregator.accept(batch.times, batch.values, batch.count);
+                    timing[3]++;
+                }
+            } finally {
+                timing[0] = System.nanoTime() - started - timing[1];
+            }
+        }
+
+        // === Ring Access ===
+
+        private <T> void put(SpscRing<T> ring, T element, long[] timing) {
+            if (!ring.offer(element)) {
+                long waitStarted = System.nanoTime();
+                for (int spins = 0; !ring.offer(element); spins++) {
+                    pause(spins);
+                }
+                timing[2] += System.nanoTime() - waitStarted;
+            }
+            if (element != END_OF_BLOCKS && element != END_OF_READINGS) {
+                timing[3]++;
+            }
+        }
+
+        private <T> T take(SpscRing<T> ring, long[] timing) {
+            T element = ring.poll();
+            if (element == null) {
+                long waitStarted = System.nanoTime();
+                for (int spins = 0; (element = ring.poll()) == null; spins++) {
+                    pause(spins);
+                }
+                timing[1] += System.nanoTime() - waitStarted;
+            }
+            return element;
+        }
+
+        private void pause(int spins) {
+            if (failure != null) {
+                throw new PipelineAbort();
+            }
+            if (spins < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+
+        // === Completion ===
+
+        void fail(Throwable e) {
+            if (!(e instanceof PipelineAbort) && failure == null) {
+                failure = e;
+            }
+        }
+
+        void finish() {
+            if (failure == null && Thread.currentThread().isInterrupted()) {
+                failure = new IllegalStateException("Interrupted");
+            }
+            for (Thread thread : threads) {
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        thread.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true; // Stages always finish once the run has failed or ended
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        List<StageStats> stats() {
+            List<StageStats> stats = new ArrayList<>();
+            stats.add(stage("reader", timings[0]));
+            for (int i = 0; i < parsers; i++) {
+                stats.add(stage("parser-" + (i + 1), timings[i + 1]));
+            }
+            stats.add(stage("aggregator", timings[parsers + 1]));
+            return stats;
+        }
+
+        private StageStats stage(String name, long[] timing) {
+            // Stage threads write their timings before they end, and finish() joined them
+            return new StageStats(name, Math.max(0, timing[0]), timing[1], timing[2], timing[3]);
+        }
+
+        void rethrow() {
+            Throwable e = failure;
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private static int indexOfNewline(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfNewline(byte[] bytes, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return from - 1;
+    }
+
+    /** Unwinds a stage once another stage has failed. */
+    private static final class PipelineAbort extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        PipelineAbort() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Line-aligned CSV bytes of one input, header first. */
+    private static final class RawBlock {
+        final String name;
+        final byte[] bytes;
+        final int length;
+        final boolean firstOfInput;
+
+        RawBlock(String name, byte[] bytes, int length, boolean firstOfInput) {
+            this.name = name;
+            this.bytes = bytes;
+            this.length = length;
+            this.firstOfInput = firstOfInput;
+        }
+    }
+
+    /** The readings parsed from one block, in two primitive arrays. */
+    private static final class ReadingBatch {
+        long[] times;
+        double[] values;
+        int count;
+        long records;            // Records in the block, to number the next block's warnings
+        boolean firstOfInput;
+        final ParseWarnings warnings = new ParseWarnings();
+
+        ReadingBatch(int capacity) {
+            times = new long[capacity];
+            values = new double[capacity];
+        }
+
+        void add(long time, double value) {
+            if (count == values.length) {
+                times = Arrays.copyOf(times, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            times[count] = time;
+            values[count] = value;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * WeatherQuery is a small declarative query over weather files: an aggregate of
+ * one column, over the records where a set of conditions on other columns holds,
+ * optionally grouped by a time bucket of DateUTC. For example
+ *
+ * <pre>
+ * WeatherQuery.select(Aggregate.MEAN, WeatherSchema.TEMPERATURE)
+ *             .where(WeatherSchema.HUMIDITY, Comparison.AT_LEAST, 80)
+ *             .groupBy(TimeBucket.MONTH)
+ * </pre>
+ *
+ * is the monthly average temperature when humidity is 80 or more. Queries run on
+ * the WeatherScanner path: the scan is projected onto the columns the query uses,
+ * and the conditions are checked before the aggregated column is parsed, cheapest
+ * first (missing markers and text matches on the raw bytes, then numbers), so a
+ * rejected record costs no more decoding than the condition that rejected it.
+ *
+ * Records whose aggregated column or any condition column is missing never match.
+ * Queries are immutable; where() and groupBy() return new queries.
+ */
+public final class WeatherQuery {
+
+    /** What to compute over the matching readings. */
+    public enum Aggregate {
+        COUNT,
+        SUM,
+        MEAN,
+        MIN,
+        MAX
+    }
+
+    /** How a numeric condition compares a column with its operand. */
+    public enum Comparison {
+        LESS("<"),
+        AT_MOST("<="),
+        GREATER(">"),
+        AT_LEAST(">="),
+        EQUAL("=="),
+        NOT_EQUAL("!=");
+
+        private final String symbol;
+
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * @param value The column value.
+         * @param operand The value it is compared with.
+         * @return true if the comparison holds.
+         */
+        public boolean test(double value, double operand) {
+            switch (this) {
+                case LESS:
+                    return value < operand;
+                case AT_MOST:
+                    return value <= operand;
+                case GREATER:
+                    return value > operand;
+                case AT_LEAST:
+                    return value >= operand;
+                case EQUAL:
+                    return value == operand;
+                default:
+                    return value != operand;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+
+    private final Aggregate aggregate;
+    private final String column;
+    private final List<Condition> conditions;
+    private final TimeBucket bucket; // null when not grouped
+
+    private WeatherQuery(Aggregate aggregate, String column, List<Condition> conditions, TimeBucket bucket) {
+        this.aggregate = aggregate;
+        this.column = column;
+        this.conditions = conditions;
+        this.bucket = bucket;
+    }
+
+    /**
+     * Starts a query.
+     *
+     * @param aggregate What to compute.
+     * @param column The column to aggregate, e.g. WeatherSchema.TEMPERATURE.
+     * @return A query over all records with a valid reading in the column.
+     */
+    public static WeatherQuery select(Aggregate aggregate, String column) {
+        return new WeatherQuery(aggregate, column, Collections.emptyList(), null);
+    }
+
+    /**
+     * Adds a numeric condition. Records whose column is missing or not a number do not match.
+     *
+     * @param conditionColumn The column to test, e.g. WeatherSchema.HUMIDITY.
+     * @param comparison How to compare it.
+     * @param operand The value to compare it with.
+     * @return A new query with the condition added.
+     */
+    public WeatherQuery where(String conditionColumn, Comparison comparison, double operand) {
+        return with(new Condition(conditionColumn, comparison, operand, null));
+    }
+
+    /**
+     * Adds a text condition: the column must be exactly the given value, e.g.
+     * Conditions equal to "Overcast". It is checked on the raw bytes, without decoding.
+     *
+     * @param conditionColumn The column to test.
+     * @param value The exact value the column must hold.
+     * @return A new query with the condition added.
+     */
+    public WeatherQuery whereEquals(String conditionColumn, String value) {
+        return with(new Condition(conditionColumn, null, Double.NaN, value));
+    }
+
+    /**
+     * Groups the result by a time bucket of DateUTC. Records without a valid DateUTC are skipped.
+     *
+     * @param timeBucket The bucket width.
+     * @return A new, grouped query.
+     */
+    public WeatherQuery groupBy(TimeBucket timeBucket) {
+        return new WeatherQuery(aggregate, column, conditions, timeBucket);
+    }
+
+    /**
+     * Runs the query over one scanner.
+     *
+     * @param scanner The WeatherScanner positioned before the first record.
+     * @return The result.
+     * @throws IllegalArgumentException if a column of the query is not in the file.
+     */
+    public QueryResult run(WeatherScanner scanner) {
+        QueryMetric metric = metric();
+        MultiMetricScan scan = new MultiMetricScan();
+        scan.add(metric);
+        scan.scan(0, scanner);
+        return metric.getResult();
+    }
+
+    /**
+     * Runs the query over a list of inputs in one pass. Inputs that cannot be read
+     * are reported and skipped, as in the multi-file methods.
+     *
+     * @param inputs The files or archive entries to query.
+     * @return The result over all inputs.
+     */
+    public QueryResult run(List<? extends WeatherInput> inputs) {
+        QueryMetric metric = metric();
+        MultiMetricScan scan = new MultiMetricScan();
+        scan.add(metric);
+        scan.scan(inputs);
+        return metric.getResult();
+    }
+
+    /**
+     * Creates a metric that evaluates this query, so it can share a MultiMetricScan
+     * with other metrics and queries.
+     *
+     * @return A new metric; its result is read with getResult() after the scan.
+     */
+    public QueryMetric metric() {
+        return metric(WeatherMetric.ALL_INPUTS);
+    }
+
+    /**
+     * Creates a metric that evaluates this query on one input of a scan, e.g. the
+     * first file of a single pass that also analyzes all of them.
+     *
+     * @param input The position of the input in the scan, or WeatherMetric.ALL_INPUTS.
+     * @return A new metric; its result is read with getResult() after the scan.
+     */
+    public QueryMetric metric(int input) {
+        return new QueryMetric(this, input);
+    }
+
+    /**
+     * @return What the query computes.
+     */
+    public Aggregate getAggregate() {
+        return aggregate;
+    }
+
+    /**
+     * @return The aggregated column.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return The time bucket, or null if the query is not grouped.
+     */
+    public TimeBucket getBucket() {
+        return bucket;
+    }
+
+    List<Condition> conditions() {
+        return conditions;
+    }
+
+    private WeatherQuery with(Condition condition) {
+        List<Condition> more = new ArrayList<>(conditions);
+        more.add(condition);
+        // Text matches need no number parsing, so they are checked first
+        more.sort((a, b) -> Boolean.compare(b.isText(), a.isText()));
+        return new WeatherQuery(aggregate, column, Collections.unmodifiableList(more), bucket);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("SELECT ").append(aggregate).append('(').append(column).append(')');
+        for (int i = 0; i < conditions.size(); i++) {
+            text.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+        }
+        if (bucket != null) {
+            text.append(" GROUP BY ").append(bucket);
+        }
+        return text.toString();
+    }
+
+    /** One condition of the WHERE clause: a numeric comparison or an exact text match. */
+    static final class Condition {
+        final String column;
+        final Comparison comparison; // null for a text match
+        final double operand;
+        final String text;           // null for a numeric comparison
+        final byte[] textBytes;
+
+        Condition(String column, Comparison comparison, double operand, String text) {
+            this.column = column;
+            this.comparison = comparison;
+            this.operand = operand;
+            this.text = text;
+            this.textBytes = text != null ? text.getBytes(StandardCharsets.UTF_8) : null;
+        }
+
+        boolean isText() {
+            return text != null;
+        }
+
+        @Override
+        public String toString() {
+            return isText() ? column + " = \"" + text + "\"" : column + " " + comparison + " " + operand;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+/**
+ * WeatherRecord is a single materialized row of a weather CSV file.
+ * It mirrors the parts of CSVRecord used by WeatherDataParser (get, isSet,
+ * getRecordNumber) so results from the byte scanner can be reported the
+ * same way as results from a CSVParser.
+ *
+ * Only the rows that are actually returned to a caller are materialized;
+ * the scan loops themselves never build a WeatherRecord.
+ */
+public class WeatherRecord {
+
+    private final WeatherSchema schema;
+    private final String[] values;
+    private final long recordNumber;
+
+    /**
+     * Creates a record from already decoded field values.
+     *
+     * @param schema The column layout of the file the record came from.
+     * @param values The decoded field values, in column order.
+     * @param recordNumber The 1-based record number (header not counted).
+     */
+    public WeatherRecord(WeatherSchema schema, String[] values, long recordNumber) {
+        this.schema = schema;
+        this.values = values;
+        this.recordNumber = recordNumber;
+    }
+
+    /**
+     * Returns the value of the named column.
+     *
+     * @param name The column name from the header.
+     * @return The field value.
+     * @throws IllegalArgumentException if the column does not exist or is not set for this record.
+     */
+    public String get(String name) {
+        int index = schema.require(name);
+        if (index >= values.length) {
+            throw new IllegalArgumentException("Index for header '" + name + "' is " + index
+                                               + " but record only has " + values.length + " values");
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the value at the given column index.
+     *
+     * @param index The 0-based column index.
+     * @return The field value.
+     */
+    public String get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Checks whether the named column exists and has a value in this record.
+     *
+     * @param name The column name from the header.
+     * @return true if the column is present in this record.
+     */
+    public boolean isSet(String name) {
+        int index = schema.indexOf(name);
+        return index >= 0 && index < values.length;
+    }
+
+    /**
+     * @return The 1-based record number within its file (header not counted).
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * @return The number of values in this record.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns a copy of this record with a different record number, used when a
+     * record found in one chunk of a file is reported relative to the whole file.
+     *
+     * @param newRecordNumber The record number of the copy.
+     * @return The renumbered record.
+     */
+    public WeatherRecord renumbered(long newRecordNumber) {
+        return new WeatherRecord(schema, values, newRecordNumber);
+    }
+
+    /**
+     * @return The column layout of the file the record came from.
+     */
+    public WeatherSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public String toString() {
+        return "WeatherRecord [recordNumber=" + recordNumber + ", values=" + Arrays.toString(values) + "]";
+    }
+}
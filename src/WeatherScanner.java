@@ -0,0 +1,839 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * WeatherScanner walks a weather CSV file as raw bytes instead of going through
+ * FileResource and CSVParser.
+ *
+ * A file is memory-mapped with FileChannel.map, in windows for very large files.
+ * Input that is not a regular file (stdin, a pipe, a socket, a decompressor) can be
+ * read from an InputStream instead; it is consumed in one pass through a bounded
+ * buffer that only grows if a single record does not fit in it. Text that is already
+ * in memory can be scanned straight from its byte array.
+ * Each call to next() locates the fields of one record without decoding them.
+ * Callers read fields by column index through byte offsets into buffer(), and only
+ * turn a field into a String (getString) or a whole row into a WeatherRecord
+ * (toRecord) when they actually need to report it.
+ *
+ * A query that only needs a few columns can declare them with project(). The
+ * scanner then records offsets only for those columns and, once the last of them
+ * has been found, skips the rest of the line without looking at field boundaries.
+ *
+ * Missing readings ("-9999", "N/A" or any configured MissingValues) are recognized
+ * from the raw bytes by isMissing() and getValue(), without decoding the field.
+ *
+ * The searches for commas, newlines and quotes go through a DelimiterFinder, which
+ * looks at 8 to 64 bytes per step depending on what the JVM supports.
+ *
+ * The format handled is the one produced by the Duke weather files: a header line,
+ * comma separated fields, optional double-quoted fields with "" escapes, and
+ * LF or CRLF line endings. Empty lines and a leading UTF-8 byte order mark are skipped.
+ *
+ * A scanner is not thread-safe; open one per file per thread.
+ */
+public class WeatherScanner implements Closeable {
+
+    /** Largest region mapped at once; files larger than this are mapped window by window. */
+    static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private static final long RANGE_WINDOW_SLACK = 64 * 1024;
+
+    /** Initial buffer size when reading from an InputStream. */
+    static final int DEFAULT_STREAM_BUFFER_SIZE = 64 * 1024;
+
+    /** Largest a stream buffer may grow to hold one record. */
+    private static final int MAX_STREAM_BUFFER_SIZE = 64 * 1024 * 1024;
+
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private static final DelimiterFinder FINDER = DelimiterFinder.select();
+
+    private final String name;
+    private final FileChannel channel; // null when reading from a stream or an array
+    private final InputStream stream;  // null when reading from a mapped file or an array
+    private final long fileSize;
+    private final long windowSize;
+    private boolean streamEnded;
+
+    private ByteBuffer buffer;  // Current mapped window, or the stream buffer
+    private long bufferStart;   // Input offset of buffer index 0
+    private int pos;            // Next unread index in buffer
+    private int limit;          // Number of mapped bytes in buffer
+    private long delimiterMask; // Commas and newlines in [maskBase, maskBase + 64)
+    private int maskBase;
+    private boolean quotedFieldHasEscapes;
+
+    private final WeatherSchema schema;
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+    private boolean[] escaped = new boolean[32]; // Field contains "" pairs to unescape
+    private int fieldCount;
+    private boolean[] projected;  // Columns recorded in projected mode, or null for all
+    private int lastProjected;    // Highest projected column index
+    private long recordNumber;
+    private long recordOffset;
+    private long rangeEnd = Long.MAX_VALUE; // Records starting at or after this offset are not read
+    private MissingValues missingValues = MissingValues.DEFAULT;
+
+    /**
+     * Opens a scanner over the given file and reads its header line. A gzip file
+     * (.gz) is decompressed on the fly as a stream; any other file is memory-mapped.
+     *
+     * @param file The CSV file to scan.
+     * @return A scanner positioned before the first data record.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static WeatherScanner open(File file) throws IOException {
+        if (CompressedInput.isGzip(file)) {
+            return new WeatherScanner(CompressedInput.openGzip(file), file.getName(), CompressedInput.BUFFER_SIZE);
+        }
+        return new WeatherScanner(file, 0, Long.MAX_VALUE, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens a scanner over the records of a file whose first byte lies in
+     * [rangeStart, rangeEnd). The header is still read from the start of the file.
+     * Scanners over adjacent ranges together visit every record exactly once, which
+     * is what lets one file be split across threads. Ranges are aligned on newlines,
+     * so quoted fields must not contain line breaks.
+     *
+     * @param file The CSV file to scan.
+     * @param rangeStart The first byte offset of the range.
+     * @param rangeEnd The byte offset just past the range.
+     * @return A scanner positioned before the first record starting in the range.
+     * Its recordNumber() counts from the start of the range.
+     * @throws IOException if the file cannot be opened or mapped.
+     * @throws IllegalArgumentException if the file is compressed, since a compressed
+     * file can only be read from the start.
+     */
+    public static WeatherScanner open(File file, long rangeStart, long rangeEnd) throws IOException {
+        if (CompressedInput.isGzip(file)) {
+            throw new IllegalArgumentException("Cannot scan a byte range of compressed file " + file.getName());
+        }
+        return new WeatherScanner(file, rangeStart, rangeEnd, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens a scanner that reads from a stream in a single pass, e.g. System.in or
+     * the output of a decompressor. Closing the scanner closes the stream.
+     *
+     * @param in The stream holding the CSV text, header line first.
+     * @param name A name for the input, used in messages.
+     * @return A scanner positioned before the first data record.
+     * @throws IOException if the header cannot be read.
+     */
+    public static WeatherScanner open(InputStream in, String name) throws IOException {
+        return new WeatherScanner(in, name, DEFAULT_STREAM_BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a scanner over CSV text already in memory, e.g. a whole file read in one
+     * go by an I/O thread. The bytes are scanned in place, not copied, so the array
+     * must not change while the scanner is in use.
+     *
+     * @param data The CSV bytes, header line first.
+     * @param length The number of bytes of data that hold the text.
+     * @param name A name for the input, used in messages.
+     * @return A scanner positioned before the first data record.
+     * @throws IOException if the header cannot be read.
+     */
+    public static WeatherScanner open(byte[] data, int length, String name) throws IOException {
+        if (length < 0 || length > data.length) {
+            throw new IllegalArgumentException("Length " + length + " out of bounds for " + data.length + " bytes");
+        }
+        return new WeatherScanner(data, length, name);
+    }
+
+    WeatherScanner(File file, long windowSize) throws IOException {
+        this(file, 0, Long.MAX_VALUE, windowSize);
+    }
+
+    WeatherScanner(File file, long rangeStart, long rangeEnd, long windowSize) throws IOException {
+        this.name = file.getName();
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.stream = null;
+        // A range scanner only needs its range mapped, plus room for the record crossing its end
+        long rangeLength = Math.max(rangeEnd - rangeStart, 0);
+        this.windowSize = rangeLength < windowSize - RANGE_WINDOW_SLACK ? rangeLength + RANGE_WINDOW_SLACK : windowSize;
+        try {
+            this.fileSize = channel.size();
+            map(0);
+            schema = readHeader();
+            if (rangeStart > bufferStart + pos) {
+                seekToLineStart(rangeStart);
+            }
+            this.rangeEnd = rangeEnd;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    WeatherScanner(InputStream in, String name, int bufferSize) throws IOException {
+        this.name = name;
+        this.channel = null;
+        this.stream = in;
+        this.fileSize = -1;
+        this.windowSize = bufferSize;
+        this.buffer = ByteBuffer.allocate(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.maskBase = -DelimiterFinder.BLOCK_SIZE;
+        try {
+            while (limit < 3 && !streamEnded) {
+                fill(); // Enough to recognize a byte order mark
+            }
+            schema = readHeader();
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    WeatherScanner(byte[] data, int length, String name) throws IOException {
+        this.name = name;
+        this.channel = null;
+        this.stream = null; // The whole input is in the buffer, so there is nothing to fill from
+        this.fileSize = length;
+        this.windowSize = length;
+        this.streamEnded = true;
+        this.buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        this.limit = length;
+        this.maskBase = -DelimiterFinder.BLOCK_SIZE;
+        schema = readHeader();
+    }
+
+    private WeatherSchema readHeader() throws IOException {
+        skipByteOrderMark();
+        String[] header = new String[0]; // Stays empty for an empty input
+        if (readRecord()) {
+            header = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                header[i] = getString(i);
+            }
+        }
+        recordNumber = 0; // The header is not counted as a record
+        return WeatherSchema.forHeader(header);
+    }
+
+    /**
+     * Advances to the next data record.
+     *
+     * @return true if a record was read, false at end of file.
+     * @throws UncheckedIOException if the next window of the file cannot be mapped.
+     */
+    public boolean next() {
+        try {
+            return readRecord();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + name, e);
+        }
+    }
+
+    // === Projection ===
+
+    /**
+     * Restricts scanning to the named columns. Other fields are skipped at the byte
+     * level and are not set in later records. Names that are not in the header are ignored.
+     *
+     * @param columnNames The columns the caller is going to read.
+     */
+    public void project(String... columnNames) {
+        int[] columns = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = columnIndex(columnNames[i]);
+        }
+        project(columns);
+    }
+
+    /**
+     * Restricts scanning to the given column indexes. Negative indexes are ignored,
+     * so the result of columnIndex can be passed directly.
+     *
+     * @param columns The 0-based indexes of the columns the caller is going to read.
+     */
+    public void project(int... columns) {
+        boolean[] wanted = new boolean[schema.size()];
+        int last = -1;
+        for (int column : columns) {
+            if (column >= 0) {
+                if (column >= wanted.length) {
+                    wanted = Arrays.copyOf(wanted, column + 1);
+                }
+                wanted[column] = true;
+                last = Math.max(last, column);
+            }
+        }
+        projected = wanted;
+        lastProjected = last;
+    }
+
+    /**
+     * Goes back to recording every field of each record.
+     */
+    public void clearProjection() {
+        projected = null;
+    }
+
+    // === Field Access ===
+
+    /**
+     * @return The buffer that fieldStart and fieldEnd offsets refer to. Only valid
+     * until the next call to next().
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return The number of fields in the current record. In projected mode, the
+     * count stops at the last projected column.
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @param column The 0-based column index.
+     * @return The buffer index of the first byte of the field (quotes excluded).
+     */
+    public int fieldStart(int column) {
+        return starts[column];
+    }
+
+    /**
+     * @param column The 0-based column index.
+     * @return The buffer index one past the last byte of the field (quotes excluded).
+     */
+    public int fieldEnd(int column) {
+        return ends[column];
+    }
+
+    /**
+     * @param column The 0-based column index.
+     * @return true if the current record has a value for the column.
+     */
+    public boolean isSet(int column) {
+        return column >= 0 && column < fieldCount
+               && (projected == null || (column < projected.length && projected[column]));
+    }
+
+    /**
+     * Compares a field with a byte sequence without decoding it.
+     *
+     * @param column The 0-based column index.
+     * @param value The bytes to compare with, e.g. an ASCII sentinel such as "-9999".
+     * @return true if the field is set and its bytes are exactly value.
+     */
+    public boolean fieldEquals(int column, byte[] value) {
+        if (!isSet(column) || escaped[column]) {
+            return false;
+        }
+        int start = starts[column];
+        if (ends[column] - start != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(start + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the sentinels that mark a field as missing. Defaults to MissingValues.DEFAULT.
+     *
+     * @param missingValues The missing value markers to recognize.
+     */
+    public void setMissingValues(MissingValues missingValues) {
+        this.missingValues = missingValues;
+    }
+
+    /**
+     * Checks whether a field of the current record holds no reading: either the
+     * record has no such field or the field is one of the missing value markers.
+     *
+     * @param column The 0-based column index.
+     * @return true if the field is missing.
+     */
+    public boolean isMissing(int column) {
+        return !isSet(column) || (!escaped[column] && missingValues.matches(buffer, starts[column], ends[column]));
+    }
+
+    /**
+     * Reads a numeric field of the current record, with missing readings as NaN.
+     *
+     * @param column The 0-based column index.
+     * @return The parsed value, or Double.NaN if the field is missing.
+     * @throws NumberFormatException if the field is present but not a number.
+     */
+    public double getValue(int column) {
+        return isMissing(column) ? Double.NaN : getDouble(column);
+    }
+
+    /**
+     * Decodes a field of the current record.
+     *
+     * @param column The 0-based column index.
+     * @return The field value, or an empty string if the record has no such field.
+     */
+    public String getString(int column) {
+        return isSet(column) ? decode(column) : "";
+    }
+
+    private String decode(int column) {
+        byte[] bytes = new byte[ends[column] - starts[column]];
+        buffer.get(starts[column], bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        return escaped[column] ? value.replace("\"\"", "\"") : value;
+    }
+
+    /**
+     * Parses a field of the current record as a double, directly from its bytes.
+     *
+     * @param column The 0-based column index.
+     * @return The parsed value, identical to Double.parseDouble on the decoded field.
+     * @throws NumberFormatException if the field is not a number.
+     */
+    public double getDouble(int column) {
+        if (!isSet(column) || escaped[column]) {
+            return Double.parseDouble(getString(column));
+        }
+        return WeatherNumbers.parseDouble(buffer, starts[column], ends[column]);
+    }
+
+    /**
+     * Reads a field of the current record as a reading of an analysis: missing values
+     * are skipped, and a value that is not a number is reported as
+     * "Warning: Could not parse <label> value: V in record N" and skipped too.
+     *
+     * @param column The 0-based column index.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @return The parsed value, or Double.NaN if the field is missing or not a number.
+     */
+    public double readingOrNaN(int column, String label) {
+        return readingOrNaN(column, label, null);
+    }
+
+    /**
+     * Same as readingOrNaN(column, label), but the warning for a value that is not a
+     * number can be held back, for a scanner over part of an input whose record
+     * numbers count from the start of that part.
+     *
+     * @param column The 0-based column index.
+     * @param label How the column is called in warnings, e.g. "temperature".
+     * @param deferred Collects the warnings, or null to print them right away.
+     * @return The parsed value, or Double.NaN if the field is missing or not a number.
+     */
+    double readingOrNaN(int column, String label, ParseWarnings deferred) {
+        if (isMissing(column)) {
+            return Double.NaN;
+        }
+        try {
+            return getDouble(column);
+        } catch (NumberFormatException e) {
+            if (deferred != null) {
+                deferred.add(label, getString(column), recordNumber);
+            } else {
+                System.err.println(ParseWarnings.format(label, getString(column), recordNumber));
+            }
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parses a field of the current record as a fixed-point number.
+     *
+     * @param column The 0-based column index.
+     * @param scale The number of decimal places kept, e.g. 1 turns "42.1" into 421.
+     * @return The value multiplied by 10^scale.
+     * @throws NumberFormatException if the field is not a number or does not fit in an int.
+     */
+    public int getFixed(int column, int scale) {
+        if (!isSet(column) || escaped[column]) {
+            throw new NumberFormatException("Not a number: \"" + getString(column) + "\"");
+        }
+        return WeatherNumbers.parseFixed(buffer, starts[column], ends[column], scale);
+    }
+
+    /**
+     * Parses a DateUTC field of the current record, directly from its bytes.
+     *
+     * @param column The 0-based column index.
+     * @return Seconds since the epoch, or WeatherTime.UNKNOWN if the field is missing or malformed.
+     */
+    public long getDateUtc(int column) {
+        if (!isSet(column) || escaped[column]) {
+            return WeatherTime.UNKNOWN;
+        }
+        return WeatherTime.parseDateUtc(buffer, starts[column], ends[column]);
+    }
+
+    /**
+     * Materializes the current record so it can outlive the scan. In projected mode
+     * the record is re-tokenized in full first, so every column is included.
+     *
+     * @return A WeatherRecord holding the decoded values of the current record.
+     */
+    public WeatherRecord toRecord() {
+        if (projected != null) {
+            try {
+                parseFields((int) (recordOffset - bufferStart), windowReachesEndOfFile(), false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading " + name, e); // Already parsed once, so unexpected
+            }
+        }
+        String[] values = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = decode(i);
+        }
+        return new WeatherRecord(schema, values, recordNumber);
+    }
+
+    // === Header and Position ===
+
+    /**
+     * @return The column layout resolved from the header line.
+     */
+    public WeatherSchema schema() {
+        return schema;
+    }
+
+    /**
+     * @return The column names from the header line.
+     */
+    public String[] header() {
+        return schema.columns();
+    }
+
+    /**
+     * @param columnName A column name from the header.
+     * @return The 0-based index of the column, or -1 if the file has no such column.
+     */
+    public int columnIndex(String columnName) {
+        return schema.indexOf(columnName);
+    }
+
+    /**
+     * Same as columnIndex, but for columns an analysis cannot do without.
+     *
+     * @param columnName A column name from the header.
+     * @return The 0-based index of the column.
+     * @throws IllegalArgumentException if the file has no such column.
+     */
+    public int requireColumn(String columnName) {
+        try {
+            return schema.require(columnName);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " in " + name);
+        }
+    }
+
+    /**
+     * @return The file name, for messages.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return The 1-based number of the current record (header not counted).
+     */
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * @return The byte offset in the file (or stream) where the current record starts.
+     */
+    public long recordOffset() {
+        return recordOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        if (channel != null) {
+            channel.close();
+        } else if (stream != null) {
+            stream.close();
+        }
+    }
+
+    // === Byte Level Parsing ===
+
+    private void map(long offset) throws IOException {
+        long size = Math.min(windowSize, fileSize - offset);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN);
+        maskBase = -DelimiterFinder.BLOCK_SIZE; // Cached mask belonged to the old window
+        bufferStart = offset;
+        limit = (int) size;
+        pos = 0;
+    }
+
+    private boolean windowReachesEndOfFile() {
+        return channel != null ? bufferStart + limit >= fileSize : streamEnded;
+    }
+
+    /**
+     * Moves the window so that it starts at the given input offset, which must lie
+     * within the current window or at its end, and brings in more input.
+     */
+    private void slide(long offset) throws IOException {
+        if (channel != null) {
+            map(offset);
+            return;
+        }
+        int keep = (int) (offset - bufferStart);
+        int remaining = limit - keep;
+        byte[] bytes = buffer.array();
+        if (keep == 0 && limit == bytes.length) {
+            // A single record fills the whole buffer
+            if (bytes.length >= MAX_STREAM_BUFFER_SIZE) {
+                throw new IOException("Record at offset " + bufferStart + " in " + name
+                                      + " is longer than " + MAX_STREAM_BUFFER_SIZE + " bytes");
+            }
+            buffer = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length * 2)).order(ByteOrder.LITTLE_ENDIAN);
+        } else if (keep > 0) {
+            System.arraycopy(bytes, keep, bytes, 0, remaining);
+        }
+        bufferStart = offset;
+        limit = remaining;
+        pos = 0;
+        maskBase = -DelimiterFinder.BLOCK_SIZE;
+        fill();
+    }
+
+    /** Reads whatever the stream has ready into the free end of the buffer. */
+    private void fill() throws IOException {
+        byte[] bytes = buffer.array();
+        int read = stream.read(bytes, limit, bytes.length - limit);
+        if (read < 0) {
+            streamEnded = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void skipByteOrderMark() {
+        if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF) {
+            pos = 3;
+        }
+    }
+
+    /**
+     * Moves to the first line that starts at or after offset, i.e. just past the
+     * first newline at or after offset - 1.
+     */
+    private void seekToLineStart(long offset) throws IOException {
+        map(Math.min(offset - 1, fileSize));
+        while (true) {
+            int newline = FINDER.indexOf(buffer, pos, limit, LF, LF);
+            if (newline < limit || windowReachesEndOfFile()) {
+                pos = Math.min(newline + 1, limit);
+                return;
+            }
+            map(bufferStart + limit);
+        }
+    }
+
+    /**
+     * Reads the next non-empty line into the field offset arrays, remapping the
+     * window when a record runs past its end.
+     */
+    private boolean readRecord() throws IOException {
+        while (true) {
+            // Skip empty lines
+            while (pos < limit && (buffer.get(pos) == LF || buffer.get(pos) == CR)) {
+                pos++;
+            }
+            if (bufferStart + pos >= rangeEnd) {
+                fieldCount = 0;
+                return false; // The next record belongs to the following range
+            }
+            if (pos >= limit) {
+                if (windowReachesEndOfFile()) {
+                    fieldCount = 0;
+                    return false;
+                }
+                slide(bufferStart + pos);
+                continue;
+            }
+
+            boolean atEof = windowReachesEndOfFile();
+            int end = parseFields(pos, atEof, projected != null);
+            if (end >= 0) {
+                recordOffset = bufferStart + pos;
+                recordNumber++;
+                pos = end;
+                return true;
+            }
+            // The record continues past the window
+            if (pos == 0 && channel != null) {
+                throw new IOException("Record at offset " + bufferStart + " in " + name
+                                      + " is longer than the mapping window");
+            }
+            slide(bufferStart + pos);
+        }
+    }
+
+    /**
+     * Finds the field boundaries of the record starting at index p.
+     *
+     * @param project Whether to record only projected columns and skip the rest of
+     * the line once the last projected column has been read.
+     * @return The index just past the record terminator, or -1 if the window ended
+     * before the record did and more of the file remains.
+     */
+    private int parseFields(int p, boolean atEof, boolean project) throws IOException {
+        fieldCount = 0;
+        for (int column = 0; ; column++) {
+            int start;
+            int end;
+            boolean hasEscapes = false;
+            if (p < limit && buffer.get(p) == QUOTE) {
+                start = p + 1;
+                end = findClosingQuote(start, atEof);
+                if (end < 0) {
+                    return -1;
+                }
+                hasEscapes = quotedFieldHasEscapes;
+                // Be lenient about anything between the closing quote and the delimiter
+                p = findDelimiter(end + 1);
+            } else {
+                start = p;
+                p = findDelimiter(p);
+                end = p;
+                if (end > start && buffer.get(end - 1) == CR && (p >= limit || buffer.get(p) == LF)) {
+                    end--;
+                }
+            }
+            if (p >= limit && !atEof) {
+                return -1;
+            }
+            if (!project || (column < projected.length && projected[column])) {
+                setField(column, start, end, hasEscapes);
+            } else {
+                fieldCount = column + 1;
+            }
+            if (p >= limit) {
+                return p; // Last record without a trailing newline
+            }
+            if (buffer.get(p++) == LF) {
+                return p;
+            }
+            if (project && column >= lastProjected) {
+                return skipRestOfLine(p, atEof);
+            }
+        }
+    }
+
+    /**
+     * Skips the unprojected tail of a record. The fast path only looks for the
+     * newline; if a quote shows up, a quoted field could hide a newline, so the
+     * tail is skipped again field by field.
+     */
+    private int skipRestOfLine(int p, boolean atEof) throws IOException {
+        int found = FINDER.indexOf(buffer, p, limit, LF, QUOTE);
+        if (found >= limit) {
+            return atEof ? found : -1;
+        }
+        if (buffer.get(found) == QUOTE) {
+            return skipFields(p, atEof);
+        }
+        return found + 1;
+    }
+
+    private int skipFields(int p, boolean atEof) throws IOException {
+        while (true) {
+            if (p < limit && buffer.get(p) == QUOTE) {
+                int closingQuote = findClosingQuote(p + 1, atEof);
+                if (closingQuote < 0) {
+                    return -1;
+                }
+                p = closingQuote + 1;
+            }
+            p = findDelimiter(p);
+            if (p >= limit) {
+                return atEof ? p : -1;
+            }
+            if (buffer.get(p++) == LF) {
+                return p;
+            }
+        }
+    }
+
+    /**
+     * Finds the next comma or newline at or after p, using a cached bit mask of
+     * the delimiters in the current 64-byte block.
+     *
+     * @return The index of the delimiter, or limit if the window has none.
+     */
+    private int findDelimiter(int p) {
+        while (p < limit) {
+            if (p < maskBase || p - maskBase >= DelimiterFinder.BLOCK_SIZE) {
+                maskBase = p;
+                delimiterMask = FINDER.mask(buffer, p, limit, COMMA, LF);
+            }
+            long remaining = delimiterMask & (-1L << (p - maskBase));
+            if (remaining != 0) {
+                return maskBase + Long.numberOfTrailingZeros(remaining);
+            }
+            p = maskBase + DelimiterFinder.BLOCK_SIZE;
+        }
+        return limit;
+    }
+
+    /**
+     * Finds the quote that closes a quoted field whose content starts at p, stepping
+     * over "" escapes. Sets quotedFieldHasEscapes.
+     *
+     * @return The index of the closing quote, or -1 if the window ends first.
+     */
+    private int findClosingQuote(int p, boolean atEof) throws IOException {
+        quotedFieldHasEscapes = false;
+        while (true) {
+            p = FINDER.indexOf(buffer, p, limit, QUOTE, QUOTE);
+            if (p >= limit) {
+                if (atEof) {
+                    throw new IOException("Unterminated quoted field in " + name);
+                }
+                return -1;
+            }
+            if (p + 1 >= limit && !atEof) {
+                return -1; // Can't tell "" from a closing quote yet
+            }
+            if (p + 1 < limit && buffer.get(p + 1) == QUOTE) {
+                quotedFieldHasEscapes = true;
+                p += 2;
+                continue;
+            }
+            return p;
+        }
+    }
+
+    private void setField(int column, int start, int end, boolean hasEscapes) {
+        if (column == starts.length) {
+            int newLength = starts.length * 2;
+            starts = Arrays.copyOf(starts, newLength);
+            ends = Arrays.copyOf(ends, newLength);
+            escaped = Arrays.copyOf(escaped, newLength);
+        }
+        starts[column] = start;
+        ends[column] = end;
+        escaped[column] = hasEscapes;
+        fieldCount = column + 1;
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WeatherSchema is the column layout of a weather file, resolved once from its header.
+ *
+ * It maps column names to ordinals and keeps the ordinals of the columns the analyses
+ * use (TemperatureF, Humidity, DateUTC and the local time column), so record loops can
+ * read fields by index instead of looking names up per row. Files from different years
+ * may order their columns differently; each distinct header line gets its own schema,
+ * and schemas are cached so the thousands of files sharing a header share one instance.
+ */
+public final class WeatherSchema {
+
+    public static final String TEMPERATURE = "TemperatureF";
+    public static final String HUMIDITY = "Humidity";
+    public static final String DATE_UTC = "DateUTC";
+    public static final String TIME_EST = "TimeEST";
+    public static final String TIME_EDT = "TimeEDT";
+
+    private static final int MAX_CACHED_SCHEMAS = 1024; // Guards against files with junk headers
+    private static final Map<List<String>, WeatherSchema> CACHE = new ConcurrentHashMap<>();
+
+    private final String[] columns;
+    private final Map<String, Integer> ordinals;
+    private final int temperature;
+    private final int humidity;
+    private final int dateUtc;
+    private final int localTime;
+
+    private WeatherSchema(String[] columns) {
+        this.columns = columns;
+        this.ordinals = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            ordinals.putIfAbsent(columns[i], i); // First column wins, as in CSVParser
+        }
+        this.temperature = indexOf(TEMPERATURE);
+        this.humidity = indexOf(HUMIDITY);
+        this.dateUtc = indexOf(DATE_UTC);
+        this.localTime = indexOf(TIME_EST) >= 0 ? indexOf(TIME_EST) : indexOf(TIME_EDT);
+    }
+
+    /**
+     * Returns the schema for a header, building it on first use.
+     *
+     * @param columns The column names from the header line, in order.
+     * @return The shared schema for that header.
+     */
+    public static WeatherSchema forHeader(String[] columns) {
+        List<String> key = List.of(columns); // Not a joined string: quoted names may contain commas
+        WeatherSchema schema = CACHE.get(key);
+        if (schema == null) {
+            schema = new WeatherSchema(columns.clone());
+            if (CACHE.size() < MAX_CACHED_SCHEMAS) {
+                WeatherSchema existing = CACHE.putIfAbsent(key, schema);
+                if (existing != null) {
+                    schema = existing;
+                }
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * @param column A column name, e.g. WeatherSchema.TEMPERATURE.
+     * @return How the column is called in messages: "temperature" for TemperatureF,
+     * "humidity" for Humidity, and the name itself for other columns.
+     */
+    public static String labelOf(String column) {
+        switch (column) {
+            case TEMPERATURE:
+                return "temperature";
+            case HUMIDITY:
+                return "humidity";
+            default:
+                return column;
+        }
+    }
+
+    /**
+     * @param columnName A column name from the header.
+     * @return The 0-based index of the column, or -1 if there is no such column.
+     */
+    public int indexOf(String columnName) {
+        Integer ordinal = ordinals.get(columnName);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Same as indexOf, but for columns an analysis cannot do without.
+     *
+     * @param columnName A column name from the header.
+     * @return The 0-based index of the column.
+     * @throws IllegalArgumentException if there is no such column.
+     */
+    public int require(String columnName) {
+        int index = indexOf(columnName);
+        if (index < 0) {
+            throw new IllegalArgumentException("Mapping for " + columnName + " not found, expected one of "
+                                               + Arrays.toString(columns));
+        }
+        return index;
+    }
+
+    /**
+     * @return The index of TemperatureF, or -1 if absent.
+     */
+    public int temperature() {
+        return temperature;
+    }
+
+    /**
+     * @return The index of Humidity, or -1 if absent.
+     */
+    public int humidity() {
+        return humidity;
+    }
+
+    /**
+     * @return The index of DateUTC, or -1 if absent.
+     */
+    public int dateUtc() {
+        return dateUtc;
+    }
+
+    /**
+     * @return The index of TimeEST, or of TimeEDT if there is no TimeEST, or -1 if neither exists.
+     */
+    public int localTime() {
+        return localTime;
+    }
+
+    /**
+     * @return The number of columns in the header.
+     */
+    public int size() {
+        return columns.length;
+    }
+
+    /**
+     * @param index The 0-based column index.
+     * @return The column name.
+     */
+    public String columnName(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @return A copy of the column names, in order.
+     */
+    public String[] columns() {
+        return columns.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "WeatherSchema " + Arrays.toString(columns);
+    }
+}
@@ -0,0 +1,114 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * WeatherTime converts the DateUTC column ("2014-01-06 15:36:00") to and from
+ * seconds since the epoch, so timestamps can be kept in long arrays and compared
+ * or bucketed as numbers.
+ *
+ * Parsing reads the fixed-width digits straight from the bytes and computes the
+ * day number arithmetically, with no String, LocalDateTime or formatter involved.
+ */
+public final class WeatherTime {
+
+    /** Returned for a missing or malformed timestamp. */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static final int DATE_UTC_LENGTH = 19; // yyyy-MM-dd HH:mm:ss
+    private static final DateTimeFormatter DATE_UTC_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private WeatherTime() {
+    }
+
+    /**
+     * Parses bytes [start, end) of a buffer as a DateUTC timestamp.
+     *
+     * @param buffer The buffer holding the field.
+     * @param start Index of the first byte of the field.
+     * @param end Index one past the last byte of the field.
+     * @return Seconds since 1970-01-01 00:00:00 UTC, or UNKNOWN if the field is not
+     * of the form yyyy-MM-dd HH:mm:ss.
+     */
+    public static long parseDateUtc(ByteBuffer buffer, int start, int end) {
+        if (end - start != DATE_UTC_LENGTH
+                || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-' || buffer.get(start + 10) != ' '
+                || buffer.get(start + 13) != ':' || buffer.get(start + 16) != ':') {
+            return UNKNOWN;
+        }
+        int year = digits(buffer, start, 4);
+        int month = digits(buffer, start + 5, 2);
+        int day = digits(buffer, start + 8, 2);
+        int hour = digits(buffer, start + 11, 2);
+        int minute = digits(buffer, start + 14, 2);
+        int second = digits(buffer, start + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]
+                || (month == 2 && day == 29 && !isLeapYear(year))
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return UNKNOWN; // Also catches non-digits, which make digits() negative
+        }
+        return epochDay(year, month, day) * 86400L + hour * 3600 + minute * 60 + second;
+    }
+
+    /**
+     * Parses a DateUTC value.
+     *
+     * @param text The value, e.g. "2014-01-06 15:36:00".
+     * @return Seconds since the epoch, or UNKNOWN if the value is malformed.
+     */
+    public static long parseDateUtc(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return parseDateUtc(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Formats a timestamp the way the DateUTC column writes it.
+     *
+     * @param epochSecond Seconds since the epoch.
+     * @return The timestamp as yyyy-MM-dd HH:mm:ss, or "Unknown Time" for UNKNOWN.
+     */
+    public static String formatDateUtc(long epochSecond) {
+        if (epochSecond == UNKNOWN) {
+            return "Unknown Time";
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).format(DATE_UTC_FORMAT);
+    }
+
+    /**
+     * Counts days from 1970-01-01 to a date of the proleptic Gregorian calendar.
+     *
+     * @param year The year.
+     * @param month The month, 1 to 12.
+     * @param day The day of the month.
+     * @return The day number; negative before 1970.
+     */
+    static long epochDay(int year, int month, int day) {
+        // Shift the year to start in March, so the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    /** Reads count ASCII digits; returns a negative number if any byte is not a digit. */
+    private static int digits(ByteBuffer buffer, int start, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int d = buffer.get(start + i) - '0';
+            if (d < 0 || d > 9) {
+                return Integer.MIN_VALUE;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * ZipWeatherArchive reads the daily CSV files of a ZIP archive, such as the
+ * nc_weather download, without extracting them.
+ *
+ * Each CSV entry becomes a WeatherInput that the multi-file analyses can take
+ * like any file. Entries are inflated straight from the archive; ScannerPrefetcher
+ * inflates the next entries on worker threads while the current one is parsed, so
+ * thousands of small files cost neither an extraction step nor a file system lookup each.
+ * The archive must stay open while its inputs are being read.
+ */
+public class ZipWeatherArchive implements AutoCloseable {
+
+    private final File file;
+    private final ZipFile zip;
+
+    /**
+     * Opens an archive.
+     *
+     * @param file The .zip file.
+     * @throws IOException if the file cannot be opened or is not a ZIP archive.
+     */
+    public ZipWeatherArchive(File file) throws IOException {
+        this.file = file;
+        this.zip = new ZipFile(file);
+    }
+
+    /**
+     * @param file A file name to check.
+     * @return true if the file is a ZIP archive, judging by its .zip extension.
+     */
+    public static boolean isZip(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".zip");
+    }
+
+    /**
+     * @return All CSV entries of the archive (.csv or .csv.gz), sorted by path.
+     */
+    public List<WeatherInput> entries() {
+        return entries("");
+    }
+
+    /**
+     * Lists the CSV entries (.csv or .csv.gz) below a folder of the archive, e.g. "nc_weather/2014/".
+     *
+     * @param folder The path prefix the entries must start with; "" for the whole archive.
+     * @return The matching entries, sorted by path.
+     */
+    public List<WeatherInput> entries(String folder) {
+        List<ZipEntry> matching = new ArrayList<>();
+        zip.stream()
+           .filter(entry -> !entry.isDirectory() && entry.getName().startsWith(folder) && isCsv(entry.getName()))
+           .forEach(matching::add);
+        matching.sort(Comparator.comparing(ZipEntry::getName));
+
+        List<WeatherInput> inputs = new ArrayList<>(matching.size());
+        for (ZipEntry entry : matching) {
+            inputs.add(new Entry(entry));
+        }
+        return inputs;
+    }
+
+    /**
+     * @return The archive file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Closes the archive. Streams still open on its entries stop working.
+     *
+     * @throws IOException if the archive cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    private static boolean isCsv(String entryName) {
+        String lower = entryName.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".csv") || lower.endsWith(".csv.gz");
+    }
+
+    /** One CSV entry of the archive. */
+    private final class Entry implements WeatherInput {
+
+        private final ZipEntry entry;
+        private final boolean gzipped;
+
+        Entry(ZipEntry entry) {
+            this.entry = entry;
+            this.gzipped = entry.getName().toLowerCase(Locale.ROOT).endsWith(".gz");
+        }
+
+        @Override
+        public String name() {
+            String path = entry.getName();
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public WeatherScanner open() throws IOException {
+            return new WeatherScanner(openStream(), name(), CompressedInput.bufferSize(size()));
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            InputStream in = zip.getInputStream(entry); // ZipFile allows concurrent entry streams
+            if (!gzipped) {
+                return in;
+            }
+            try {
+                return new GZIPInputStream(in, CompressedInput.BUFFER_SIZE);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean isCompressed() {
+            return gzipped || entry.getMethod() != ZipEntry.STORED;
+        }
+
+        @Override
+        public long size() {
+            return gzipped ? -1 : entry.getSize();
+        }
+
+        @Override
+        public String toString() {
+            return file.getName() + "!/" + entry.getName();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that MinReading and LowestReadings give the same answer when files are
+ * cut into chunks at arbitrary byte offsets and the per-chunk results are merged
+ * in any tree shape, as when they are computed on their own: the same values,
+ * the first record on a tie, and record numbers counted from the start of each
+ * file rather than of each chunk.
+ *
+ *   java -cp "bin;lib/*" MergeCheck
+ */
+public class MergeCheck {
+
+    private static final int TRIALS = 300;
+    private static final int[] CAPACITIES = {1, 3, 50, 2000};
+
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("merge-check").toFile();
+        Random random = new Random(20);
+        List<File> files = new ArrayList<>();
+        try {
+            // A header-only file and a one-record file between two larger ones
+            int[] rows = {700, 0, 1, 900};
+            for (int i = 0; i < rows.length; i++) {
+                files.add(writeCsv(new File(dir, "f" + i + ".csv"), i, rows[i], random));
+            }
+            List<WeatherInput> inputs = WeatherInput.ofFiles(files);
+            List<Reading> all = readSequentially(files);
+            for (int trial = 0; trial < TRIALS; trial++) {
+                int k = CAPACITIES[trial % CAPACITIES.length];
+                List<MinReading> minima = new ArrayList<>();
+                List<LowestReadings> heaps = new ArrayList<>();
+                scanInChunks(files, k, random, minima, heaps);
+
+                MinReading minimum = reduce(minima, 0, minima.size(), random);
+                checkMinimum(minimum, all, "trial " + trial);
+                checkMinimum(PartialAggregate.reduce(minima), all, "trial " + trial + " (balanced)");
+
+                LowestReadings lowest = reduce(heaps, 0, heaps.size(), random);
+                checkLowest(lowest.materialize(inputs), all, k, "trial " + trial);
+                checkLowest(PartialAggregate.reduce(heaps).materialize(inputs), all, k,
+                            "trial " + trial + " (balanced)");
+            }
+        } finally {
+            for (File file : files) {
+                file.delete();
+            }
+            dir.delete();
+        }
+        System.out.println("MergeCheck passed");
+    }
+
+    /** One valid reading of the sequential scan. */
+    private static final class Reading {
+        final double value;
+        final int input;
+        final long recordNumber;
+        final String tag;
+
+        Reading(double value, int input, long recordNumber, String tag) {
+            this.value = value;
+            this.input = input;
+            this.recordNumber = recordNumber;
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Writes a file whose temperatures come from a small set, so the lowest values
+     * occur many times and ties decide the answers. TimeEST tags each record.
+     */
+    private static File writeCsv(File file, int input, int rows, Random random) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.print("TimeEST,TemperatureF,Humidity,DateUTC\n");
+            for (int row = 0; row < rows; row++) {
+                String temperature = random.nextInt(10) == 0 ? "-9999" : String.valueOf(random.nextInt(30) - 5);
+                out.print("f" + input + "r" + row + "," + temperature + "," + random.nextInt(100)
+                          + ",2014-01-01 05:51:00\n");
+            }
+        }
+        return file;
+    }
+
+    private static List<Reading> readSequentially(List<File> files) throws IOException {
+        List<Reading> all = new ArrayList<>();
+        for (int input = 0; input < files.size(); input++) {
+            try (WeatherScanner scanner = WeatherScanner.open(files.get(input))) {
+                int temp = scanner.requireColumn(WeatherSchema.TEMPERATURE);
+                int tag = scanner.requireColumn(WeatherSchema.TIME_EST);
+                while (scanner.next()) {
+                    if (!scanner.isMissing(temp)) {
+                        all.add(new Reading(scanner.getDouble(temp), input, scanner.recordNumber(),
+                                            scanner.getString(tag)));
+                    }
+                }
+            }
+        }
+        return all;
+    }
+
+    /** Scans each file in chunks cut at random byte offsets, one result per chunk, in order. */
+    private static void scanInChunks(List<File> files, int k, Random random,
+                                     List<MinReading> minima, List<LowestReadings> heaps) throws IOException {
+        for (int input = 0; input < files.size(); input++) {
+            File file = files.get(input);
+            long length = file.length();
+            int chunks = 1 + random.nextInt(8);
+            long[] cuts = new long[chunks + 1];
+            for (int i = 1; i < chunks; i++) {
+                cuts[i] = (long) (random.nextDouble() * length);
+            }
+            cuts[chunks] = length;
+            Arrays.sort(cuts);
+            for (int i = 0; i < chunks; i++) {
+                MinReading minimum = new MinReading();
+                LowestReadings lowest = new LowestReadings(k);
+                try (WeatherScanner scanner = WeatherScanner.open(file, cuts[i], cuts[i + 1])) {
+                    int temp = scanner.requireColumn(WeatherSchema.TEMPERATURE);
+                    while (scanner.next()) {
+                        double value = scanner.readingOrNaN(temp, "temperature");
+                        if (!Double.isNaN(value)) {
+                            minimum.offer(value, scanner);
+                            lowest.offer(value, input, scanner);
+                        }
+                    }
+                    minimum.addRecords(scanner.recordNumber());
+                    lowest.addRecords(scanner.recordNumber());
+                }
+                if (i == chunks - 1) {
+                    minimum.endInput();
+                    lowest.endInput();
+                }
+                minima.add(minimum);
+                heaps.add(lowest);
+            }
+        }
+    }
+
+    /** Merges parts[from, to) in a random tree shape. */
+    private static <T extends PartialAggregate<T>> T reduce(List<T> parts, int from, int to, Random random) {
+        if (to - from == 1) {
+            return parts.get(from);
+        }
+        int split = from + 1 + random.nextInt(to - from - 1);
+        return reduce(parts, from, split, random).merge(reduce(parts, split, to, random));
+    }
+
+    private static void checkMinimum(MinReading minimum, List<Reading> all, String where) {
+        Reading expected = all.get(0);
+        for (Reading reading : all) {
+            if (reading.value < expected.value) {
+                expected = reading;
+            }
+        }
+        WeatherRecord record = minimum.getRecord();
+        check(record != null, where + ": no minimum");
+        check(minimum.getValue() == expected.value, where + ": minimum " + minimum.getValue()
+              + ", expected " + expected.value);
+        check(expected.tag.equals(record.get(WeatherSchema.TIME_EST)), where + ": minimum at "
+              + record.get(WeatherSchema.TIME_EST) + ", expected " + expected.tag);
+        check(record.getRecordNumber() == expected.recordNumber, where + ": minimum numbered "
+              + record.getRecordNumber() + ", expected " + expected.recordNumber);
+    }
+
+    private static void checkLowest(List<RankedReading> ranked, List<Reading> all, int k, String where) {
+        List<Reading> expected = new ArrayList<>(all);
+        expected.sort(Comparator.comparingDouble((Reading r) -> r.value)); // Stable: ties stay in file order
+        expected = expected.subList(0, Math.min(k, expected.size()));
+        check(ranked.size() == expected.size(), where + ": " + ranked.size() + " readings, expected "
+              + expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            RankedReading actual = ranked.get(i);
+            Reading wanted = expected.get(i);
+            String at = where + ", rank " + i + " of k=" + k;
+            check(actual.getValue() == wanted.value, at + ": value " + actual.getValue() + ", expected "
+                  + wanted.value);
+            check(actual.getInputIndex() == wanted.input
+                  && wanted.tag.equals(actual.getRecord().get(WeatherSchema.TIME_EST)),
+                  at + ": record " + actual.getRecord().get(WeatherSchema.TIME_EST) + ", expected " + wanted.tag);
+            check(actual.getRecord().getRecordNumber() == wanted.recordNumber, at + ": numbered "
+                  + actual.getRecord().getRecordNumber() + ", expected " + wanted.recordNumber);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            System.out.println("MergeCheck FAILED: " + message);
+            System.exit(1);
+        }
+    }
+}
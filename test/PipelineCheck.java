@@ -0,0 +1,139 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that WeatherPipeline, with files split into many blocks, hands the
+ * aggregator exactly the readings of a sequential scan, in the same order with the
+ * same times, and prints the same warnings with the same record numbers. Block
+ * sizes go down to less than one line, which exercises the reader's carry-over.
+ *
+ *   java -cp "bin;lib/*" PipelineCheck
+ */
+public class PipelineCheck {
+
+    private static final int[] BLOCK_SIZES = {16, 100, 997, 4096, WeatherPipeline.DEFAULT_BLOCK_SIZE};
+
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("pipeline-check").toFile();
+        Random random = new Random(23);
+        List<File> files = new ArrayList<>();
+        try {
+            // A header-only file, and a last file without a final newline
+            int[] rows = {5000, 0, 3, 8000};
+            for (int i = 0; i < rows.length; i++) {
+                files.add(writeCsv(new File(dir, "f" + i + ".csv"), rows[i], i == rows.length - 1, random));
+            }
+            List<WeatherInput> inputs = WeatherInput.ofFiles(files);
+
+            ByteArrayOutputStream expectedWarnings = new ByteArrayOutputStream();
+            List<double[]> expected = withErr(expectedWarnings, () -> readSequentially(inputs));
+            check(!expected.isEmpty() && expectedWarnings.size() > 0, "the files have no readings or no warnings");
+
+            for (int blockSize : BLOCK_SIZES) {
+                for (int parsers = 1; parsers <= 3; parsers++) {
+                    String where = "block size " + blockSize + ", " + parsers + " parser(s)";
+                    WeatherPipeline pipeline = new WeatherPipeline(parsers, blockSize, 1 + random.nextInt(3));
+                    ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+                    List<double[]> actual = withErr(warnings, () -> {
+                        List<double[]> readings = new ArrayList<>();
+                        pipeline.run(inputs, WeatherSchema.TEMPERATURE, "temperature", (times, values, count) -> {
+                            for (int i = 0; i < count; i++) {
+                                readings.add(new double[] {times[i], values[i]});
+                            }
+                        });
+                        return readings;
+                    });
+                    checkSame(expected, actual, where);
+                    String printed = warnings.toString(StandardCharsets.UTF_8);
+                    check(expectedWarnings.toString(StandardCharsets.UTF_8).equals(printed),
+                          where + ": warnings differ:\n" + printed);
+                }
+            }
+        } finally {
+            for (File file : files) {
+                file.delete();
+            }
+            dir.delete();
+        }
+        System.out.println("PipelineCheck passed");
+    }
+
+    /** Writes a file with missing, unparsable and NaN temperatures among the valid ones. */
+    private static File writeCsv(File file, int rows, boolean noFinalNewline, Random random) throws IOException {
+        // TemperatureF first, so a line that loses its start at a block boundary changes a reading
+        StringBuilder text = new StringBuilder("TemperatureF,TimeEST,Humidity,DateUTC\n");
+        for (int row = 0; row < rows; row++) {
+            int kind = random.nextInt(50);
+            String temperature = kind == 0 ? "-9999" : kind == 1 ? "bad" + row : kind == 2 ? "NaN"
+                                 : String.valueOf((random.nextInt(900) - 200) / 10.0);
+            text.append(temperature).append(",12:51 AM,").append(random.nextInt(100))
+                .append(",2014-01-").append(String.format("%02d", 1 + row % 28)).append(' ')
+                .append(String.format("%02d:%02d:00", row % 24, row % 60)).append('\n');
+        }
+        if (noFinalNewline && rows > 0) {
+            text.setLength(text.length() - 1);
+        }
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.print(text);
+        }
+        return file;
+    }
+
+    /** The (time, value) readings of a sequential scan, as the pipeline should deliver them. */
+    private static List<double[]> readSequentially(List<WeatherInput> inputs) throws IOException {
+        List<double[]> readings = new ArrayList<>();
+        for (WeatherInput input : inputs) {
+            try (WeatherScanner scanner = input.open()) {
+                int temp = scanner.requireColumn(WeatherSchema.TEMPERATURE);
+                int date = scanner.schema().dateUtc();
+                while (scanner.next()) {
+                    double value = scanner.readingOrNaN(temp, "temperature");
+                    if (!Double.isNaN(value)) {
+                        readings.add(new double[] {scanner.getDateUtc(date), value});
+                    }
+                }
+            }
+        }
+        return readings;
+    }
+
+    private static void checkSame(List<double[]> expected, List<double[]> actual, String where) {
+        check(expected.size() == actual.size(), where + ": " + actual.size() + " readings, expected "
+              + expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            check(expected.get(i)[0] == actual.get(i)[0] && expected.get(i)[1] == actual.get(i)[1],
+                  where + ": reading " + i + " is (" + actual.get(i)[0] + ", " + actual.get(i)[1]
+                  + "), expected (" + expected.get(i)[0] + ", " + expected.get(i)[1] + ")");
+        }
+    }
+
+    private interface Task<T> {
+        T run() throws Exception;
+    }
+
+    /** Runs a task with System.err captured. */
+    private static <T> T withErr(ByteArrayOutputStream captured, Task<T> task) throws Exception {
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            return task.run();
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            System.out.println("PipelineCheck FAILED: " + message);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Checks that several gzip inputs prefetched on a small decompression pool are
+ * read to the end instead of hanging: read-ahead streams that nobody reads must
+ * not hold the pool threads the stream being read needs.
+ *
+ * Run it on one core to reproduce the smallest pool:
+ *
+ *   java -XX:ActiveProcessorCount=1 -cp "bin;lib/*" PrefetchCheck
+ */
+public class PrefetchCheck {
+
+    private static final long TIMEOUT_MILLIS = 60_000;
+    private static final int ROWS = 120_000; // About 6 MB of CSV text per file
+
+    public static void main(String[] args) throws Exception {
+        singleThreadExecutor();
+        coldestHourInTwoGzipFiles();
+        System.out.println("PrefetchCheck passed");
+    }
+
+    /** A stream started first and never read must not stop a later one on the same thread. */
+    private static void singleThreadExecutor() throws Exception {
+        byte[] data = new byte[8 * 1024 * 1024];
+        Arrays.fill(data, (byte) 'x');
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        InputStream idle = new ReadAheadInputStream(new ByteArrayInputStream(data), executor, 64 * 1024, 4);
+        try (InputStream read = new ReadAheadInputStream(new ByteArrayInputStream(data), executor, 64 * 1024, 4)) {
+            long total = runWithTimeout("reading the second of two read-ahead streams", () -> {
+                long n = 0;
+                byte[] buffer = new byte[100_000];
+                int r;
+                while ((r = read.read(buffer, 0, buffer.length)) >= 0) {
+                    n += r;
+                }
+                return n;
+            });
+            check(total == data.length, "read " + total + " of " + data.length + " bytes");
+        } finally {
+            idle.close();
+            executor.shutdownNow();
+        }
+    }
+
+    /** The multi-file scan over two large gzip files finishes and finds the coldest reading. */
+    private static void coldestHourInTwoGzipFiles() throws Exception {
+        File dir = Files.createTempDirectory("prefetch-check").toFile();
+        File first = new File(dir, "a.csv.gz");
+        File second = new File(dir, "b.csv.gz");
+        try {
+            writeGzip(first, -1);
+            writeGzip(second, ROWS / 2);
+            WeatherDataParser parser = new WeatherDataParser();
+            List<File> files = Arrays.asList(first, second);
+            WeatherRecord coldest = runWithTimeout("coldestHourInManyFiles over two gzip files",
+                    () -> parser.coldestHourInManyFiles(files));
+            check(coldest != null, "no coldest record found");
+            check("-40.0".equals(coldest.get("TemperatureF")), "coldest was " + coldest.get("TemperatureF"));
+            check(coldest.getRecordNumber() == ROWS / 2 + 1, "coldest at record " + coldest.getRecordNumber());
+        } finally {
+            first.delete();
+            second.delete();
+            dir.delete();
+        }
+    }
+
+    /**
+     * Writes a gzip weather file of ROWS records.
+     *
+     * @param file The file to write.
+     * @param coldRow The 0-based row that gets the coldest temperature, or -1 for none.
+     */
+    private static void writeGzip(File file, int coldRow) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8))) {
+            out.write("TimeEST,TemperatureF,Dew PointF,Humidity,Sea Level PressureIn,VisibilityMPH,"
+                      + "Wind Direction,Wind SpeedMPH,Gust SpeedMPH,PrecipitationIn,Events,Conditions,"
+                      + "WindDirDegrees,DateUTC\n");
+            for (int i = 0; i < ROWS; i++) {
+                String temperature = i == coldRow ? "-40.0" : String.valueOf(20 + i % 40) + ".0";
+                out.write("12:51 AM," + temperature + ",30.0,19,30.03,10.0,SW,4.6,-,N/A,,Overcast,230,"
+                          + "2014-01-01 05:51:00\n");
+            }
+        }
+    }
+
+    private interface Task<T> {
+        T run() throws Exception;
+    }
+
+    /** Runs a task on its own thread and fails the check if it does not finish in time. */
+    private static <T> T runWithTimeout(String what, Task<T> task) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.set(task.run());
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        }, "prefetch-check");
+        thread.setDaemon(true);
+        thread.start();
+        thread.join(TIMEOUT_MILLIS);
+        check(!thread.isAlive(), what + " did not finish in " + TIMEOUT_MILLIS / 1000 + " s");
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            System.out.println("PrefetchCheck FAILED: " + message);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that the coldest-day listing kept in a FileSummary shows each temperature
+ * and DateUTC exactly as written in the file, and that a file and the same bytes
+ * read from a stream give the same listing.
+ *
+ *   java -cp "bin;lib/*" ReportCheck
+ */
+public class ReportCheck {
+
+    private static final String[] WARMER = {
+        "TimeEST,TemperatureF,Humidity,DateUTC",
+        "12:51 AM,30.9,40,2014-01-01 05:51:00",
+        "01:51 AM,28,41,2014-01-01 06:51:00",
+    };
+
+    private static final String[] COLDER = {
+        "TimeEST,TemperatureF,Humidity,DateUTC",
+        "12:51 AM,5,40,2014-01-02 05:51:00",      // Integer, printed without ".0"
+        "01:51 AM,-9999,41,2014-01-02 06:51:00",  // Not listed
+        "02:51 AM,abc,42,2014-01-02 07:51:00",    // Listed as written, though not a number
+        "03:51 AM,-2.50,43,2014-01-02 08:51:00",  // Trailing zero kept
+        "04:51 AM,,44,2014-01-02 09:51:00",       // Empty temperature
+        "05:51 AM,1.0",                           // No DateUTC
+        "06:51 AM,-2.5,45,2014-01-02 11:51:00",
+    };
+
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("report-check").toFile();
+        File warmer = writeCsv(new File(dir, "warmer.csv"), WARMER);
+        File colder = writeCsv(new File(dir, "colder.csv"), COLDER);
+        try {
+            List<String> expected = Arrays.asList(
+                    "2014-01-02 05:51:00: 5",
+                    "2014-01-02 07:51:00: abc",
+                    "2014-01-02 08:51:00: -2.50",
+                    "2014-01-02 09:51:00: ",
+                    "Unknown Time: 1.0",
+                    "2014-01-02 11:51:00: -2.5");
+            WeatherDataParser parser = new WeatherDataParser();
+
+            FileSummary fromFiles = parser.inputWithColdestTemperature(WeatherInput.ofFiles(
+                    Arrays.asList(warmer, colder)), true);
+            check(fromFiles != null && fromFiles.getName().equals("colder.csv"), "wrong coldest file: " + fromFiles);
+            check(fromFiles.getMinimumRecord().getRecordNumber() == 4, "coldest at record "
+                  + fromFiles.getMinimumRecord().getRecordNumber());
+            check(expected.equals(fromFiles.getListing()), "file listing " + fromFiles.getListing());
+
+            try (FileInputStream in = new FileInputStream(colder)) {
+                List<WeatherInput> stream = new ArrayList<>();
+                stream.add(WeatherInput.of(in, "stdin"));
+                FileSummary fromStream = parser.inputWithColdestTemperature(stream, true);
+                check(fromStream != null && expected.equals(fromStream.getListing()),
+                      "stream listing " + (fromStream == null ? null : fromStream.getListing()));
+            }
+        } finally {
+            warmer.delete();
+            colder.delete();
+            dir.delete();
+        }
+        System.out.println("ReportCheck passed");
+    }
+
+    private static File writeCsv(File file, String[] lines) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            for (String line : lines) {
+                out.print(line + "\n");
+            }
+        }
+        return file;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            System.out.println("ReportCheck FAILED: " + message);
+            System.exit(1);
+        }
+    }
+}
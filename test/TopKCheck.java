@@ -0,0 +1,88 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that the parallel top-k methods, which split large files into parts and
+ * merge the parts' heaps, rank the same records with the same record numbers as
+ * the sequential top-k methods, ties included.
+ *
+ *   java -cp "bin;lib/*" TopKCheck
+ */
+public class TopKCheck {
+
+    private static final int[] CAPACITIES = {1, 10, 500, 100_000};
+    private static final int LARGE_ROWS = 120_000; // About 5 MB, so the file is scanned in several parts
+
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("topk-check").toFile();
+        Random random = new Random(17);
+        List<File> files = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int[] rows = {300, LARGE_ROWS, 0, 50, LARGE_ROWS / 2};
+            for (int i = 0; i < rows.length; i++) {
+                files.add(writeCsv(new File(dir, "f" + i + ".csv"), i, rows[i], random));
+            }
+            WeatherDataParser parser = new WeatherDataParser();
+            for (int k : CAPACITIES) {
+                checkSame(parser.coldestHoursInManyFiles(files, k),
+                          parser.coldestHoursInManyFiles(files, k, pool), "coldest hours, k=" + k);
+                checkSame(parser.lowestHumidityReadingsInManyFiles(files, k),
+                          parser.lowestHumidityReadingsInManyFiles(files, k, pool), "lowest humidity, k=" + k);
+            }
+        } finally {
+            pool.shutdown();
+            for (File file : files) {
+                file.delete();
+            }
+            dir.delete();
+        }
+        System.out.println("TopKCheck passed");
+    }
+
+    /** Writes a file whose readings come from small sets, so ties decide the ranking. TimeEST tags each record. */
+    private static File writeCsv(File file, int input, int rows, Random random) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.print("TimeEST,TemperatureF,Dew PointF,Humidity,Conditions,DateUTC\n");
+            for (int row = 0; row < rows; row++) {
+                String temperature = random.nextInt(20) == 0 ? "-9999" : String.valueOf(random.nextInt(60) - 10);
+                String humidity = random.nextInt(20) == 0 ? "N/A" : String.valueOf(5 + random.nextInt(95));
+                out.print("f" + input + "r" + row + "," + temperature + ",30.0," + humidity
+                          + ",Overcast,2014-01-01 05:51:00\n");
+            }
+        }
+        return file;
+    }
+
+    private static void checkSame(List<RankedReading> expected, List<RankedReading> actual, String where) {
+        check(expected.size() == actual.size(), where + ": " + actual.size() + " readings, expected "
+              + expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            RankedReading wanted = expected.get(i);
+            RankedReading got = actual.get(i);
+            String at = where + ", rank " + i;
+            check(wanted.getValue() == got.getValue(), at + ": value " + got.getValue() + ", expected "
+                  + wanted.getValue());
+            String wantedTag = wanted.getRecord().get(WeatherSchema.TIME_EST);
+            String gotTag = got.getRecord().get(WeatherSchema.TIME_EST);
+            check(wanted.getInputIndex() == got.getInputIndex() && wantedTag.equals(gotTag),
+                  at + ": record " + gotTag + ", expected " + wantedTag);
+            check(wanted.getRecord().getRecordNumber() == got.getRecord().getRecordNumber(),
+                  at + ": numbered " + got.getRecord().getRecordNumber() + ", expected "
+                  + wanted.getRecord().getRecordNumber());
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            System.out.println("TopKCheck FAILED: " + message);
+            System.exit(1);
+        }
+    }
+}